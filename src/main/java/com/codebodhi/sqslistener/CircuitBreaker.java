@@ -0,0 +1,149 @@
+package com.codebodhi.sqslistener;
+
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pauses polling when the handler error rate over the last {@value #WINDOW_SIZE} messages reaches
+ * the threshold. After {@code openDuration} polling resumes with a single trial message, doubling
+ * the number of messages allowed in flight after each fully successful round until the listener's
+ * parallelism is reached. Any failure while resuming pauses polling again.
+ */
+class CircuitBreaker {
+  private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+  static final int WINDOW_SIZE = 20;
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String queueName;
+  private final double failureRateThreshold;
+  private final Duration openDuration;
+  private final int maxPermits;
+  private final boolean[] outcomes = new boolean[WINDOW_SIZE];
+  private int outcomeIndex;
+  private int outcomeCount;
+  private int failureCount;
+  private State state = State.CLOSED;
+  private long openedAtNanos;
+  private int rampLimit;
+  private int trialsInFlight;
+  private int trialSuccesses;
+
+  CircuitBreaker(
+      String queueName, double failureRateThreshold, Duration openDuration, int maxPermits) {
+    this.queueName = queueName;
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDuration = openDuration;
+    this.maxPermits = maxPermits;
+  }
+
+  synchronized State getState() {
+    return state;
+  }
+
+  synchronized boolean isOpen() {
+    return state == State.OPEN && System.nanoTime() - openedAtNanos < openDuration.toNanos();
+  }
+
+  /**
+   * Returns how many of the {@code requested} messages may be received now. Returns 0 right away
+   * while open, and blocks while resuming until a trial message completes.
+   */
+  synchronized int acquire(int requested) {
+    while (true) {
+      if (state == State.CLOSED) {
+        return requested;
+      }
+      if (state == State.OPEN) {
+        if (isOpen()) {
+          return 0;
+        }
+        log.info("Circuit breaker for queue {} is half-open, resuming polling", queueName);
+        state = State.HALF_OPEN;
+        rampLimit = 1;
+        trialsInFlight = 0;
+        trialSuccesses = 0;
+      }
+      final int granted = Math.min(requested, rampLimit - trialsInFlight);
+      if (granted > 0) {
+        trialsInFlight += granted;
+        return granted;
+      }
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt(); // preserve interrupt
+        throw new SqsListenerException("Thread interrupted", e);
+      }
+    }
+  }
+
+  /** Returns permits for messages that were not received or not processed. */
+  synchronized void release(int permits) {
+    if (state == State.HALF_OPEN) {
+      trialsInFlight = Math.max(0, trialsInFlight - permits);
+      notifyAll();
+    }
+  }
+
+  synchronized void onSuccess() {
+    if (state == State.HALF_OPEN) {
+      trialsInFlight = Math.max(0, trialsInFlight - 1);
+      if (++trialSuccesses >= rampLimit) {
+        rampLimit *= 2;
+        trialSuccesses = 0;
+        if (rampLimit >= maxPermits) {
+          log.info("Circuit breaker for queue {} is closed", queueName);
+          state = State.CLOSED;
+          resetOutcomes();
+        }
+      }
+      notifyAll();
+    } else if (state == State.CLOSED) {
+      record(false);
+    }
+  }
+
+  synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      open();
+    } else if (state == State.CLOSED) {
+      record(true);
+      if (outcomeCount == WINDOW_SIZE && failureCount >= failureRateThreshold * WINDOW_SIZE) {
+        open();
+      }
+    }
+  }
+
+  private void open() {
+    log.warn(
+        "Circuit breaker for queue {} is open, pausing polling for {}", queueName, openDuration);
+    state = State.OPEN;
+    openedAtNanos = System.nanoTime();
+    resetOutcomes();
+    notifyAll();
+  }
+
+  private void record(boolean failed) {
+    if (outcomeCount == WINDOW_SIZE && outcomes[outcomeIndex]) {
+      failureCount--;
+    }
+    outcomes[outcomeIndex] = failed;
+    if (failed) {
+      failureCount++;
+    }
+    outcomeIndex = (outcomeIndex + 1) % WINDOW_SIZE;
+    outcomeCount = Math.min(WINDOW_SIZE, outcomeCount + 1);
+  }
+
+  private void resetOutcomes() {
+    outcomeIndex = 0;
+    outcomeCount = 0;
+    failureCount = 0;
+  }
+}
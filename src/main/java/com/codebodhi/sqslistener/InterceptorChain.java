@@ -0,0 +1,80 @@
+package com.codebodhi.sqslistener;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calls interceptors in registration order before processing and in reverse order after, so the
+ * first one registered wraps all others. An interceptor that throws is logged and skipped.
+ */
+class InterceptorChain {
+  private static final Logger log = LoggerFactory.getLogger(InterceptorChain.class);
+  private final SqsListenerInterceptor[] interceptors;
+
+  private enum Stage {
+    BEFORE_PROCESS,
+    AFTER_PROCESS,
+    ON_ERROR,
+    AFTER_DELETE
+  }
+
+  InterceptorChain(List<SqsListenerInterceptor> interceptors) {
+    this.interceptors = interceptors.toArray(new SqsListenerInterceptor[0]);
+  }
+
+  boolean isEmpty() {
+    return interceptors.length == 0;
+  }
+
+  Set<String> messageAttributeNames() {
+    final Set<String> attributeNames = new HashSet<>();
+    for (SqsListenerInterceptor interceptor : interceptors) {
+      attributeNames.addAll(interceptor.messageAttributeNames());
+    }
+    return Collections.unmodifiableSet(attributeNames);
+  }
+
+  void beforeProcess(SqsMessage message) {
+    intercept(Stage.BEFORE_PROCESS, message, null);
+  }
+
+  void afterProcess(SqsMessage message) {
+    intercept(Stage.AFTER_PROCESS, message, null);
+  }
+
+  void onError(SqsMessage message, Exception error) {
+    intercept(Stage.ON_ERROR, message, error);
+  }
+
+  void afterDelete(SqsMessage message) {
+    intercept(Stage.AFTER_DELETE, message, null);
+  }
+
+  private void intercept(Stage stage, SqsMessage message, Exception error) {
+    for (int i = 0; i < interceptors.length; i++) {
+      final SqsListenerInterceptor interceptor =
+          interceptors[stage == Stage.BEFORE_PROCESS ? i : interceptors.length - 1 - i];
+      try {
+        switch (stage) {
+          case BEFORE_PROCESS:
+            interceptor.beforeProcess(message);
+            break;
+          case AFTER_PROCESS:
+            interceptor.afterProcess(message);
+            break;
+          case ON_ERROR:
+            interceptor.onError(message, error);
+            break;
+          default:
+            interceptor.afterDelete(message);
+        }
+      } catch (Exception e) {
+        log.warn("Error in interceptor {} at {}", interceptor, stage, e);
+      }
+    }
+  }
+}
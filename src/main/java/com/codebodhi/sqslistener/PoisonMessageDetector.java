@@ -0,0 +1,111 @@
+package com.codebodhi.sqslistener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a failed message should be quarantined instead of retried. A message is poison
+ * when it reached {@code maxReceiveCount}, or earlier when it failed {@value #REPEATED_FAILURES}
+ * times in a row on this node with the same failure fingerprint (exception type and where it was
+ * thrown) while at least {@value #HEALTHY_SUCCESSES} other messages succeeded since its first such
+ * failure. Without those successes the handler may simply be unable to reach a dependency, e.g. a
+ * database being down, so the message is retried until {@code maxReceiveCount}. The same applies to
+ * a fingerprint shared by {@value #SYSTEMIC_FAILURES} or more failing messages.
+ */
+class PoisonMessageDetector {
+  static final int REPEATED_FAILURES = 2;
+  static final int SYSTEMIC_FAILURES = 3;
+  static final int HEALTHY_SUCCESSES = 3;
+  static final int MAX_TRACKED_MESSAGES = 10_000;
+
+  private static class Failure {
+    int fingerprint;
+    int count;
+    long successesAtFirstFailure;
+
+    Failure(int fingerprint, long successes) {
+      this.fingerprint = fingerprint;
+      this.count = 1;
+      this.successesAtFirstFailure = successes;
+    }
+  }
+
+  private final int maxReceiveCount;
+  private final AtomicLong successes = new AtomicLong();
+  private final Map<Integer, Integer> messagesPerFingerprint = new HashMap<>();
+  private final Map<String, Failure> failures =
+      new LinkedHashMap<String, Failure>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Failure> eldest) {
+          if (size() > MAX_TRACKED_MESSAGES) {
+            untrack(eldest.getValue().fingerprint);
+            return true;
+          }
+          return false;
+        }
+      };
+
+  PoisonMessageDetector(int maxReceiveCount) {
+    this.maxReceiveCount = maxReceiveCount;
+  }
+
+  synchronized boolean isPoison(SqsMessage message, int fingerprint) {
+    Failure failure = failures.get(message.messageId);
+    if (failure == null) {
+      failure = new Failure(fingerprint, successes.get());
+      failures.put(message.messageId, failure);
+      track(fingerprint);
+    } else if (failure.fingerprint == fingerprint) {
+      failure.count++;
+    } else {
+      untrack(failure.fingerprint);
+      failure.fingerprint = fingerprint;
+      failure.count = 1;
+      failure.successesAtFirstFailure = successes.get();
+      track(fingerprint);
+    }
+    if (message.receivedCount >= maxReceiveCount) {
+      return true;
+    }
+    return failure.count >= REPEATED_FAILURES
+        && successes.get() - failure.successesAtFirstFailure >= HEALTHY_SUCCESSES
+        && messagesPerFingerprint.get(fingerprint) < SYSTEMIC_FAILURES;
+  }
+
+  /** Counts a processed message as evidence that the handler is healthy and stops tracking it. */
+  void onSuccess(SqsMessage message) {
+    successes.incrementAndGet();
+    if (message.receivedCount > 1) {
+      forget(message.messageId);
+    }
+  }
+
+  /** Stops tracking a message that was quarantined. */
+  synchronized void forget(String messageId) {
+    final Failure failure = failures.remove(messageId);
+    if (failure != null) {
+      untrack(failure.fingerprint);
+    }
+  }
+
+  static int fingerprint(Throwable e) {
+    Throwable rootCause = e;
+    while (rootCause.getCause() != null && rootCause.getCause() != rootCause) {
+      rootCause = rootCause.getCause();
+    }
+    final StackTraceElement[] stackTrace = rootCause.getStackTrace();
+    return 31 * rootCause.getClass().getName().hashCode()
+        + (stackTrace.length > 0 ? stackTrace[0].hashCode() : 0);
+  }
+
+  private void track(int fingerprint) {
+    messagesPerFingerprint.merge(fingerprint, 1, Integer::sum);
+  }
+
+  private void untrack(int fingerprint) {
+    messagesPerFingerprint.computeIfPresent(
+        fingerprint, (key, count) -> count > 1 ? count - 1 : null);
+  }
+}
@@ -0,0 +1,186 @@
+package com.codebodhi.sqslistener;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The worker budget shared by the per-queue listeners of a {@link SqsPriorityListener}, where
+ * priority 0 is the highest. A worker permit that frees up goes to a waiting worker of the highest
+ * priority (strict) or is shared among the waiting priorities in proportion to their weights
+ * (weighted fair, using smooth weighted round-robin). Also tells lower-priority listeners how much
+ * to receive while higher-priority queues have a backlog.
+ */
+class PriorityGroup {
+  private int permits;
+  private final int[] weights;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition[] granted;
+  private final int[] waiting;
+  private final int[] grants;
+  private final int[] currentWeights;
+  private final QueueBacklogSampler[] backlogSamplers;
+  private int available;
+
+  /**
+   * @param weights the weight of each priority, or null for strict priority
+   */
+  PriorityGroup(int priorities, int permits, int[] weights) {
+    this.permits = permits;
+    this.weights = weights;
+    this.available = permits;
+    this.granted = new Condition[priorities];
+    for (int i = 0; i < priorities; i++) {
+      granted[i] = lock.newCondition();
+    }
+    this.waiting = new int[priorities];
+    this.grants = new int[priorities];
+    this.currentWeights = new int[priorities];
+    this.backlogSamplers = new QueueBacklogSampler[priorities];
+  }
+
+  private int getPermits() {
+    lock.lock();
+    try {
+      return permits;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void register(int priority, QueueBacklogSampler backlogSampler) {
+    backlogSamplers[priority] = backlogSampler;
+  }
+
+  void acquire(int priority) {
+    lock.lock();
+    try {
+      waiting[priority]++;
+      assign();
+      while (grants[priority] == 0) {
+        try {
+          granted[priority].await();
+        } catch (InterruptedException e) {
+          waiting[priority]--;
+          if (grants[priority] > waiting[priority]) {
+            // hand a permit granted to this thread on to someone else
+            grants[priority]--;
+            available++;
+            assign();
+          }
+          Thread.currentThread().interrupt(); // preserve interrupt
+          throw new SqsListenerException("Thread interrupted", e);
+        }
+      }
+      grants[priority]--;
+      waiting[priority]--;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void release() {
+    lock.lock();
+    try {
+      available++;
+      assign();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Caps how many messages the listener of {@code priority} may hold while a higher-priority queue
+   * has messages waiting: strict priority only takes permits no one else is waiting for, weighted
+   * fair takes its weighted share of all permits.
+   */
+  int receiveLimit(int priority, int desired) {
+    if (!hasHigherPriorityBacklog(priority)) {
+      return desired;
+    }
+    if (weights == null) {
+      lock.lock();
+      try {
+        return Math.min(desired, available);
+      } finally {
+        lock.unlock();
+      }
+    }
+    int totalWeight = 0;
+    for (int weight : weights) {
+      totalWeight += weight;
+    }
+    final int share = (getPermits() * weights[priority] + totalWeight - 1) / totalWeight;
+    return Math.min(desired, Math.max(1, share));
+  }
+
+  /**
+   * Changes the number of workers. When shrinking, permits held beyond the new number are not
+   * handed out again once released.
+   */
+  void setPermits(int permits) {
+    lock.lock();
+    try {
+      available += permits - this.permits;
+      this.permits = permits;
+      assign();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean hasHigherPriorityBacklog(int priority) {
+    for (int i = 0; i < priority; i++) {
+      if (backlogSamplers[i] != null && backlogSamplers[i].getBacklog().getVisible() > 0) {
+        return true;
+      }
+      lock.lock();
+      try {
+        if (waiting[i] > grants[i]) {
+          return true;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return false;
+  }
+
+  private void assign() {
+    while (available > 0) {
+      final int priority = next();
+      if (priority < 0) {
+        return;
+      }
+      available--;
+      grants[priority]++;
+      granted[priority].signal();
+    }
+  }
+
+  /** Picks the priority to grant the next permit to, or -1 if no one is waiting for one. */
+  private int next() {
+    if (weights == null) {
+      for (int i = 0; i < waiting.length; i++) {
+        if (waiting[i] > grants[i]) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int next = -1;
+    int totalWeight = 0;
+    for (int i = 0; i < waiting.length; i++) {
+      if (waiting[i] > grants[i]) {
+        currentWeights[i] += weights[i];
+        totalWeight += weights[i];
+        if (next < 0 || currentWeights[i] > currentWeights[next]) {
+          next = i;
+        }
+      }
+    }
+    if (next >= 0) {
+      currentWeights[next] -= totalWeight;
+    }
+    return next;
+  }
+}
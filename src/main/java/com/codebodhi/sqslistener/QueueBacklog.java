@@ -0,0 +1,46 @@
+package com.codebodhi.sqslistener;
+
+/** A sample of a queue's approximate message counts. */
+public class QueueBacklog {
+  private final int visible;
+  private final int notVisible;
+  private final int delayed;
+  private final long sampledAtMillis;
+
+  QueueBacklog(int visible, int notVisible, int delayed, long sampledAtMillis) {
+    this.visible = visible;
+    this.notVisible = notVisible;
+    this.delayed = delayed;
+    this.sampledAtMillis = sampledAtMillis;
+  }
+
+  /** ApproximateNumberOfMessages, messages available for retrieval. */
+  public int getVisible() {
+    return visible;
+  }
+
+  /** ApproximateNumberOfMessagesNotVisible, messages received but not yet deleted. */
+  public int getNotVisible() {
+    return notVisible;
+  }
+
+  /** ApproximateNumberOfMessagesDelayed, messages not yet available because of a delay. */
+  public int getDelayed() {
+    return delayed;
+  }
+
+  public long getSampledAtMillis() {
+    return sampledAtMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "QueueBacklog{visible="
+        + visible
+        + ", notVisible="
+        + notVisible
+        + ", delayed="
+        + delayed
+        + "}";
+  }
+}
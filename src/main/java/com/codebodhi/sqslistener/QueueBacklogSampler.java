@@ -0,0 +1,184 @@
+package com.codebodhi.sqslistener;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+/**
+ * Samples a queue's backlog in the background at a low rate and caches it, so all listeners of the
+ * queue in this JVM share one GetQueueAttributes call per interval. Also measures how many messages
+ * per second those listeners process while there is a backlog to work on.
+ *
+ * <p>Intervals in which no listener asked for the backlog, e.g. while their circuit breakers are
+ * open, are skipped, and the sampler stops once the last listener using it released it.
+ */
+class QueueBacklogSampler {
+  private static final Logger log = LoggerFactory.getLogger(QueueBacklogSampler.class);
+  private static final Map<Map.Entry<SqsAsyncClient, String>, QueueBacklogSampler> SAMPLERS =
+      new ConcurrentHashMap<>();
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            final Thread thread = new Thread(runnable, "sqs-listener-backlog-sampler");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // weight of the latest interval in the throughput moving average
+  private static final double SMOOTHING = 0.3;
+
+  private final String queueName;
+  private final SqsServiceClient sqsServiceClient;
+  // null unless sampling in the background
+  private final Map.Entry<SqsAsyncClient, String> key;
+  private final Duration samplingInterval;
+  private ScheduledFuture<?> task;
+  // guarded by SAMPLERS
+  private int users;
+  // set by getBacklog(), cleared by every background sample
+  private volatile boolean requested;
+  private final LongAdder processedCount = new LongAdder();
+  private volatile QueueBacklog backlog;
+  private volatile double throughput;
+  private long lastSampleNanos;
+  private long lastProcessedCount;
+
+  QueueBacklogSampler(String queueName, SqsServiceClient sqsServiceClient) {
+    this(queueName, sqsServiceClient, null, null);
+  }
+
+  private QueueBacklogSampler(
+      String queueName,
+      SqsServiceClient sqsServiceClient,
+      Map.Entry<SqsAsyncClient, String> key,
+      Duration samplingInterval) {
+    this.queueName = queueName;
+    this.sqsServiceClient = sqsServiceClient;
+    this.key = key;
+    this.samplingInterval = samplingInterval;
+  }
+
+  /**
+   * Returns the sampler shared by listeners of {@code queueName} using the same {@code
+   * sqsAsyncClient} (null for the default client), starting it if needed. The first listener's
+   * {@code sqsServiceClient} and {@code samplingInterval} are used until every listener that got
+   * the sampler {@linkplain #release() released} it.
+   */
+  static QueueBacklogSampler forQueue(
+      SqsAsyncClient sqsAsyncClient,
+      String queueName,
+      SqsServiceClient sqsServiceClient,
+      Duration samplingInterval) {
+    final QueueBacklogSampler sampler =
+        SAMPLERS.compute(
+            new AbstractMap.SimpleImmutableEntry<>(sqsAsyncClient, queueName),
+            (key, existing) -> {
+              final QueueBacklogSampler current =
+                  (existing != null) ? existing : start(key, sqsServiceClient, samplingInterval);
+              current.users++;
+              return current;
+            });
+    if (!sampler.samplingInterval.equals(samplingInterval)) {
+      log.warn(
+          "Backlog of queue {} is already sampled every {}, ignoring backlogSamplingInterval {}",
+          queueName,
+          sampler.samplingInterval,
+          samplingInterval);
+    }
+    return sampler;
+  }
+
+  private static QueueBacklogSampler start(
+      Map.Entry<SqsAsyncClient, String> key,
+      SqsServiceClient sqsServiceClient,
+      Duration samplingInterval) {
+    final QueueBacklogSampler sampler =
+        new QueueBacklogSampler(key.getValue(), sqsServiceClient, key, samplingInterval);
+    sampler.task =
+        SCHEDULER.scheduleWithFixedDelay(
+            sampler::sampleIfRequested,
+            samplingInterval.toMillis(),
+            samplingInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    return sampler;
+  }
+
+  /**
+   * Releases the sampler obtained from {@link #forQueue}, stopping it once no listener uses it
+   * anymore, e.g. before the listeners' client is closed.
+   */
+  void release() {
+    if (key == null) {
+      return;
+    }
+    SAMPLERS.computeIfPresent(
+        key,
+        (samplerKey, sampler) -> {
+          if (sampler != this || --users > 0) {
+            return sampler;
+          }
+          task.cancel(false);
+          log.debug("Stopped sampling backlog of queue {}", queueName);
+          return null;
+        });
+  }
+
+  QueueBacklog getBacklog() {
+    requested = true;
+    final QueueBacklog current = backlog;
+    return current != null ? current : sample();
+  }
+
+  /** Messages per second processed by the listeners of the queue, 0 until measured. */
+  double getThroughput() {
+    return throughput;
+  }
+
+  void recordProcessed() {
+    processedCount.increment();
+  }
+
+  private void sampleIfRequested() {
+    if (!requested) {
+      // discard the stale backlog, so the next listener to ask samples it right away
+      backlog = null;
+      return;
+    }
+    requested = false;
+    try {
+      sample();
+    } catch (Exception e) {
+      log.error("Error sampling backlog of queue {}", queueName, e);
+    }
+  }
+
+  synchronized QueueBacklog sample() {
+    final QueueBacklog previous = backlog;
+    final QueueBacklog current = sqsServiceClient.getQueueBacklog(queueName);
+    final long now = System.nanoTime();
+    final long processed = processedCount.sum();
+    // idle intervals say nothing about how fast messages can be processed, so only intervals
+    // that started with messages waiting are measured
+    if (previous != null && previous.getVisible() > 0 && now > lastSampleNanos) {
+      final double intervalThroughput =
+          (processed - lastProcessedCount) * 1e9 / (now - lastSampleNanos);
+      throughput =
+          throughput == 0
+              ? intervalThroughput
+              : SMOOTHING * intervalThroughput + (1 - SMOOTHING) * throughput;
+    }
+    lastSampleNanos = now;
+    lastProcessedCount = processed;
+    backlog = current;
+    log.debug("Sampled {} of queue {}", current, queueName);
+    return current;
+  }
+}
@@ -0,0 +1,95 @@
+package com.codebodhi.sqslistener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket capping how many messages per second are dispatched to {@link
+ * SqsListener#process(String)}. A single instance can be passed to several listeners to enforce a
+ * combined limit, e.g. for a database shared by all of them.
+ */
+public class RateLimiter {
+  private double permitsPerSecond;
+  private double maxPermits;
+  private double storedPermits;
+  private long lastRefillNanos;
+
+  public RateLimiter(double permitsPerSecond) {
+    if (permitsPerSecond <= 0) {
+      throw new SqsListenerException("Invalid value for permitsPerSecond! It must be positive");
+    }
+    this.permitsPerSecond = permitsPerSecond;
+    // allows bursts of up to one second worth of permits, and at least one message
+    this.maxPermits = Math.max(1, permitsPerSecond);
+    this.storedPermits = maxPermits;
+    this.lastRefillNanos = System.nanoTime();
+  }
+
+  public synchronized double getPermitsPerSecond() {
+    return permitsPerSecond;
+  }
+
+  /**
+   * Changes the rate of a limiter that is in use, e.g. to throttle all listeners sharing it.
+   * Permits already accumulated are kept up to the new burst size.
+   */
+  public synchronized void setPermitsPerSecond(double permitsPerSecond) {
+    if (permitsPerSecond <= 0) {
+      throw new SqsListenerException("Invalid value for permitsPerSecond! It must be positive");
+    }
+    refill();
+    this.permitsPerSecond = permitsPerSecond;
+    this.maxPermits = Math.max(1, permitsPerSecond);
+    this.storedPermits = Math.min(maxPermits, storedPermits);
+  }
+
+  public synchronized boolean tryAcquire() {
+    refill();
+    if (storedPermits < 1) {
+      return false;
+    }
+    storedPermits -= 1;
+    return true;
+  }
+
+  public void acquire() {
+    acquireUpTo(1);
+  }
+
+  /** Blocks until at least one permit is available and takes up to {@code maxPermits} of them. */
+  int acquireUpTo(int maxPermits) {
+    while (true) {
+      final long waitNanos;
+      synchronized (this) {
+        refill();
+        if (storedPermits >= 1) {
+          final int permits = (int) Math.min(maxPermits, Math.floor(storedPermits));
+          storedPermits -= permits;
+          return permits;
+        }
+        waitNanos = (long) ((1 - storedPermits) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+      }
+      try {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt(); // preserve interrupt
+        throw new SqsListenerException("Thread interrupted", e);
+      }
+    }
+  }
+
+  /** Returns permits that were acquired but not used, e.g. when a receive came back short. */
+  synchronized void release(int permits) {
+    refill();
+    storedPermits = Math.min(maxPermits, storedPermits + permits);
+  }
+
+  private void refill() {
+    final long now = System.nanoTime();
+    storedPermits =
+        Math.min(
+            maxPermits,
+            storedPermits
+                + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+    lastRefillNanos = now;
+  }
+}
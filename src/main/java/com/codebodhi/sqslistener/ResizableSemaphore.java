@@ -0,0 +1,30 @@
+package com.codebodhi.sqslistener;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A semaphore whose number of permits can be changed while permits are held. Shrinking below the
+ * number of held permits makes acquirers wait until enough permits have been released.
+ */
+class ResizableSemaphore extends Semaphore {
+  private int permits;
+
+  ResizableSemaphore(int permits) {
+    super(permits);
+    this.permits = permits;
+  }
+
+  synchronized int getPermits() {
+    return permits;
+  }
+
+  synchronized void setPermits(int permits) {
+    final int delta = permits - this.permits;
+    if (delta > 0) {
+      release(delta);
+    } else if (delta < 0) {
+      reducePermits(-delta);
+    }
+    this.permits = permits;
+  }
+}
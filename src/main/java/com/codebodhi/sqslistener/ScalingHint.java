@@ -0,0 +1,55 @@
+package com.codebodhi.sqslistener;
+
+import java.time.Duration;
+
+/**
+ * A hint for an orchestrator scaling the nodes that run a listener: how many nodes are needed to
+ * drain the queue's backlog within the configured {@code targetDrainTime} at the throughput
+ * measured on this node.
+ */
+public class ScalingHint {
+  private final QueueBacklog backlog;
+  private final double throughputPerNode;
+  private final int desiredReplicas;
+
+  ScalingHint(QueueBacklog backlog, double throughputPerNode, Duration targetDrainTime) {
+    this.backlog = backlog;
+    this.throughputPerNode = throughputPerNode;
+    this.desiredReplicas =
+        desiredReplicas(
+            backlog.getVisible() + backlog.getDelayed(), throughputPerNode, targetDrainTime);
+  }
+
+  static int desiredReplicas(long backlog, double throughputPerNode, Duration targetDrainTime) {
+    if (backlog == 0 || throughputPerNode <= 0) {
+      // nothing to drain, or nothing measured yet to base an estimate on
+      return 1;
+    }
+    final double drainableByOneNode = throughputPerNode * targetDrainTime.toMillis() / 1000d;
+    return (int) Math.max(1, Math.ceil(backlog / drainableByOneNode));
+  }
+
+  public QueueBacklog getBacklog() {
+    return backlog;
+  }
+
+  /** Messages processed per second by all listeners of the queue on this node. */
+  public double getThroughputPerNode() {
+    return throughputPerNode;
+  }
+
+  public int getDesiredReplicas() {
+    return desiredReplicas;
+  }
+
+  @Override
+  public String toString() {
+    return "ScalingHint{backlog="
+        + backlog
+        + ", throughputPerNode="
+        + throughputPerNode
+        + ", desiredReplicas="
+        + desiredReplicas
+        + "}";
+  }
+}
@@ -0,0 +1,73 @@
+package com.codebodhi.sqslistener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs messages whose end-to-end latency, from being sent to SQS until being deleted (or failing),
+ * exceeds a threshold, with a breakdown of where the time went. With a sample rate of n only every
+ * n-th slow message is logged, all of them are counted. Messages under the threshold cost a few
+ * subtractions and no allocations.
+ */
+public class SlowMessageDetector implements SqsListenerInterceptor {
+  private static final Logger log = LoggerFactory.getLogger(SlowMessageDetector.class);
+  private final long thresholdMillis;
+  private final int sampleRate;
+  private final AtomicLong slowMessageCount = new AtomicLong();
+
+  public SlowMessageDetector(Duration threshold) {
+    this(threshold, 1);
+  }
+
+  public SlowMessageDetector(Duration threshold, int sampleRate) {
+    if (sampleRate < 1) {
+      throw new SqsListenerException("Invalid value for sampleRate! It must be at least 1");
+    }
+    this.thresholdMillis = threshold.toMillis();
+    this.sampleRate = sampleRate;
+  }
+
+  public long getSlowMessageCount() {
+    return slowMessageCount.get();
+  }
+
+  @Override
+  public void onError(SqsMessageContext message, Exception e) {
+    detect(message, message.getProcessedTimestamp());
+  }
+
+  @Override
+  public void afterDelete(SqsMessageContext message) {
+    detect(message, message.getDeletedTimestamp());
+  }
+
+  private void detect(SqsMessageContext message, long completedAtMillis) {
+    final long startedAtMillis =
+        message.getSentTimestamp() > 0
+            ? message.getSentTimestamp()
+            : message.getReceivedTimestamp();
+    if (completedAtMillis - startedAtMillis < thresholdMillis) {
+      return;
+    }
+    if (slowMessageCount.getAndIncrement() % sampleRate != 0 || !log.isWarnEnabled()) {
+      return;
+    }
+    log.warn(
+        "Slow message {} on queue {} took {} ms: {} ms in SQS, {} ms waiting for a worker, {} ms"
+            + " processing, {} ms waiting for delete (received {} times)",
+        message.getMessageId(),
+        message.getQueueName(),
+        completedAtMillis - startedAtMillis,
+        message.getSentTimestamp() > 0
+            ? message.getReceivedTimestamp() - message.getSentTimestamp()
+            : 0,
+        message.getDispatchedTimestamp() - message.getReceivedTimestamp(),
+        message.getProcessedTimestamp() - message.getDispatchedTimestamp(),
+        message.getDeletedTimestamp() > 0
+            ? message.getDeletedTimestamp() - message.getProcessedTimestamp()
+            : 0,
+        message.getReceivedCount());
+  }
+}
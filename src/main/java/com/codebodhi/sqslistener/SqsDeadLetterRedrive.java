@@ -0,0 +1,125 @@
+package com.codebodhi.sqslistener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+/**
+ * Moves messages from a dead-letter queue back to a queue in batches, e.g. after the bug that made
+ * them fail was fixed. The failure metadata attributes added by {@link
+ * SqsListenerConfig#deadLetterQueue(String, int)} are removed, other message attributes are kept
+ * with their data types.
+ */
+public class SqsDeadLetterRedrive {
+  private static final Logger log = LoggerFactory.getLogger(SqsDeadLetterRedrive.class);
+  private static final Duration WAIT_TIME = Duration.ofSeconds(1);
+  private static final Duration VISIBILITY_TIMEOUT = Duration.ofSeconds(30);
+  private static final Set<String> ALL_MESSAGE_ATTRIBUTES =
+      Collections.singleton(SqsListener.ALL_MESSAGE_ATTRIBUTES);
+  private final SqsServiceClient sqsServiceClient;
+
+  public SqsDeadLetterRedrive() {
+    this((SqsAsyncClient) null);
+  }
+
+  public SqsDeadLetterRedrive(SqsAsyncClient sqsAsyncClient) {
+    this(SqsServiceClient.create(sqsAsyncClient));
+  }
+
+  SqsDeadLetterRedrive(SqsServiceClient sqsServiceClient) {
+    this.sqsServiceClient = sqsServiceClient;
+  }
+
+  /**
+   * Moves up to {@code maxMessages} messages from {@code deadLetterQueueName} to {@code
+   * targetQueueName}, stopping early when the dead-letter queue is empty.
+   *
+   * @return the number of messages moved
+   */
+  public int redrive(String deadLetterQueueName, String targetQueueName, int maxMessages) {
+    int redrivenMsgCount = 0;
+    while (redrivenMsgCount < maxMessages) {
+      final List<SqsMessage> messages =
+          sqsServiceClient.receiveMessage(
+              deadLetterQueueName,
+              WAIT_TIME,
+              Math.min(10, maxMessages - redrivenMsgCount),
+              VISIBILITY_TIMEOUT,
+              ALL_MESSAGE_ATTRIBUTES);
+      if (messages.isEmpty()) {
+        break;
+      }
+      final List<SqsOutboundMessage> batch = new ArrayList<>(messages.size());
+      final List<SqsMessage> batchSources = new ArrayList<>(messages.size());
+      int batchBytes = 0;
+      for (SqsMessage message : messages) {
+        final SqsOutboundMessage outboundMessage =
+            new SqsOutboundMessage(message.body, withoutFailureMetadata(message.messageAttributes));
+        final int size = outboundMessage.size();
+        if (batchBytes + size > SqsOutboundMessage.MAX_BATCH_BYTES && !batch.isEmpty()) {
+          redrivenMsgCount += send(deadLetterQueueName, targetQueueName, batch, batchSources);
+          batch.clear();
+          batchSources.clear();
+          batchBytes = 0;
+        }
+        batch.add(outboundMessage);
+        batchSources.add(message);
+        batchBytes += size;
+      }
+      redrivenMsgCount += send(deadLetterQueueName, targetQueueName, batch, batchSources);
+    }
+    log.info(
+        "Redrove {} messages from {} to {}",
+        redrivenMsgCount,
+        deadLetterQueueName,
+        targetQueueName);
+    return redrivenMsgCount;
+  }
+
+  private int send(
+      String deadLetterQueueName,
+      String targetQueueName,
+      List<SqsOutboundMessage> batch,
+      List<SqsMessage> sources) {
+    sqsServiceClient.sendMessages(targetQueueName, batch);
+    final List<String> receiptHandles = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      if (batch.get(i).messageId != null) {
+        receiptHandles.add(sources.get(i).receiptHandle);
+      } else {
+        log.error(
+            "Error redriving message {} to {}: {} {}",
+            sources.get(i).messageId,
+            targetQueueName,
+            batch.get(i).errorCode,
+            batch.get(i).errorMessage);
+      }
+    }
+    if (!receiptHandles.isEmpty()) {
+      sqsServiceClient.deleteMessages(deadLetterQueueName, receiptHandles);
+    }
+    return receiptHandles.size();
+  }
+
+  private static Map<String, SqsMessageAttribute> withoutFailureMetadata(
+      Map<String, SqsMessageAttribute> attributes) {
+    if (attributes.isEmpty()) {
+      return attributes;
+    }
+    final Map<String, SqsMessageAttribute> withoutMetadata = new HashMap<>(attributes.size() * 2);
+    attributes.forEach(
+        (name, value) -> {
+          if (!name.startsWith(SqsListener.ATTRIBUTE_PREFIX)) {
+            withoutMetadata.put(name, value);
+          }
+        });
+    return withoutMetadata;
+  }
+}
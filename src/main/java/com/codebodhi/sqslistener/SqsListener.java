@@ -5,38 +5,80 @@ import java.io.InputStream;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 
-public abstract class SqsListener {
+public abstract class SqsListener implements AutoCloseable {
   private static final Logger log = LoggerFactory.getLogger(SqsListener.class);
+  static final String ATTRIBUTE_PREFIX = "sqslistener.";
+  static final String SOURCE_QUEUE_ATTRIBUTE = ATTRIBUTE_PREFIX + "sourceQueue";
+  static final String FAILURE_CLASS_ATTRIBUTE = ATTRIBUTE_PREFIX + "failureClass";
+  static final String FAILURE_MESSAGE_ATTRIBUTE = ATTRIBUTE_PREFIX + "failureMessage";
+  static final String FAILURE_FINGERPRINT_ATTRIBUTE = ATTRIBUTE_PREFIX + "failureFingerprint";
+  static final String RECEIVE_COUNT_ATTRIBUTE = ATTRIBUTE_PREFIX + "receiveCount";
+  static final String ALL_MESSAGE_ATTRIBUTES = "All";
+  private static final int MAX_MESSAGE_ATTRIBUTES = 10;
+  private static final int MAX_FAILURE_MESSAGE_LENGTH = 1024;
   private final String queueName;
-  private final Duration pollingFrequency;
-  private final Duration visibilityTimeout;
-  private final int parallelism;
+  // settings that reconfigure() can change on the running listener
+  private volatile Duration pollingFrequency;
+  private volatile Duration visibilityTimeout;
+  private volatile int parallelism;
+  private volatile int prefetchSize;
+  private volatile Duration minRemainingVisibility;
+  // otherwise it follows the visibility timeout
+  private boolean minRemainingVisibilityConfigured;
+  private volatile RateLimiter rateLimiter;
+  private volatile int maxPollers;
+  private volatile int receiveBatchSize;
+  private final CircuitBreaker circuitBreaker;
   private final SqsServiceClient sqsServiceClient;
+  private final InterceptorChain interceptorChain;
+  private final Set<String> messageAttributeNames;
   private final ArrayBlockingQueue<String> deleteMessageQueue;
-
-  private static class MsgReceiptHandle {
-    String receiptHandle;
-    boolean erred;
-    int receivedCount;
-
-    MsgReceiptHandle(String receiptHandle, boolean erred, int receivedCount) {
-      this.receiptHandle = receiptHandle;
-      this.erred = erred;
-      this.receivedCount = receivedCount;
-    }
-  }
+  // whole messages, holding on to their bodies, are only queued when interceptors need them
+  private final ArrayBlockingQueue<SqsMessage> interceptedDeleteMessageQueue;
+  private final ArrayBlockingQueue<String> releaseMessageQueue;
+  private final String deadLetterQueueName;
+  private final PoisonMessageDetector poisonMessageDetector;
+  private final ArrayBlockingQueue<SqsMessage> quarantineMessageQueue;
+  private final Duration targetDrainTime;
+  private final QueueBacklogSampler backlogSampler;
+  private final ThreadPoolExecutor processingTaskPool;
+  private final ExecutorService pollingTaskPool;
+  private final ScheduledExecutorService pollingScheduler;
+  private final ScheduledThreadPoolExecutor deleteScheduler;
+  private volatile boolean closed;
+  // one permit per message that may be held locally, in a worker or waiting in the prefetch buffer
+  private final ResizableSemaphore bufferPermits;
+  // set when this listener consumes one queue of a SqsPriorityListener
+  private final PriorityGroup priorityGroup;
+  private final int priority;
 
   public SqsListener(String queueName) {
     this(queueName, SqsListenerConfig.builder().build());
   }
 
   public SqsListener(String queueName, SqsListenerConfig sqsListenerConfig) {
+    this(
+        queueName,
+        sqsListenerConfig,
+        SqsServiceClient.create(sqsListenerConfig.sqsAsyncClient),
+        null,
+        0);
+  }
+
+  SqsListener(
+      String queueName,
+      SqsListenerConfig sqsListenerConfig,
+      SqsServiceClient sqsServiceClient,
+      PriorityGroup priorityGroup,
+      int priority) {
     try {
       this.queueName = queueName;
+      this.priorityGroup = priorityGroup;
+      this.priority = priority;
       final DefaultConfig defaultConfig = DefaultConfig.INSTANCE;
       this.visibilityTimeout =
           (sqsListenerConfig.visibilityTimeout == null)
@@ -50,44 +92,111 @@ public abstract class SqsListener {
           (sqsListenerConfig.parallelism == 0)
               ? defaultConfig.parallelism
               : sqsListenerConfig.parallelism;
-      this.sqsServiceClient =
-          sqsListenerConfig.sqsAsyncClient != null
-              ? (SqsServiceClient)
-                  Class.forName(defaultConfig.sqsApiImplClass)
-                      .getDeclaredConstructor(SqsAsyncClient.class)
-                      .newInstance(sqsListenerConfig.sqsAsyncClient)
-              : (SqsServiceClient)
-                  Class.forName(defaultConfig.sqsApiImplClass)
-                      .getDeclaredConstructor()
-                      .newInstance();
+      this.prefetchSize =
+          (sqsListenerConfig.prefetchSize == null)
+              ? defaultConfig.prefetchSize
+              : sqsListenerConfig.prefetchSize;
+      this.minRemainingVisibility =
+          (sqsListenerConfig.minRemainingVisibility == null)
+              ? visibilityTimeout.dividedBy(10)
+              : sqsListenerConfig.minRemainingVisibility;
+      this.minRemainingVisibilityConfigured = sqsListenerConfig.minRemainingVisibility != null;
+      if (minRemainingVisibility.compareTo(visibilityTimeout) >= 0) {
+        throw new SqsListenerException(
+            "minRemainingVisibility must be less than visibilityTimeout");
+      }
+      this.rateLimiter = sqsListenerConfig.rateLimiter;
+      this.circuitBreaker =
+          (sqsListenerConfig.circuitBreakerOpenDuration == null)
+              ? null
+              : new CircuitBreaker(
+                  queueName,
+                  sqsListenerConfig.circuitBreakerFailureRateThreshold,
+                  sqsListenerConfig.circuitBreakerOpenDuration,
+                  parallelism);
+      this.sqsServiceClient = sqsServiceClient;
+
+      this.deadLetterQueueName = sqsListenerConfig.deadLetterQueueName;
+      this.poisonMessageDetector =
+          (deadLetterQueueName == null)
+              ? null
+              : new PoisonMessageDetector(sqsListenerConfig.deadLetterMaxReceiveCount);
+      this.maxPollers =
+          (sqsListenerConfig.maxPollers == 0)
+              ? defaultConfig.maxPollers
+              : sqsListenerConfig.maxPollers;
+      this.receiveBatchSize =
+          (sqsListenerConfig.receiveBatchSize == 0)
+              ? defaultConfig.receiveBatchSize
+              : sqsListenerConfig.receiveBatchSize;
+      this.targetDrainTime =
+          (sqsListenerConfig.targetDrainTime == null)
+              ? defaultConfig.targetDrainTime
+              : sqsListenerConfig.targetDrainTime;
+      this.backlogSampler =
+          QueueBacklogSampler.forQueue(
+              sqsListenerConfig.sqsAsyncClient,
+              queueName,
+              sqsServiceClient,
+              (sqsListenerConfig.backlogSamplingInterval == null)
+                  ? defaultConfig.backlogSamplingInterval
+                  : sqsListenerConfig.backlogSamplingInterval);
+      if (priorityGroup != null) {
+        priorityGroup.register(priority, backlogSampler);
+      }
+
+      this.interceptorChain = new InterceptorChain(sqsListenerConfig.interceptors);
+      // quarantined messages keep all their attributes, as with SQS's own redrive
+      this.messageAttributeNames =
+          (deadLetterQueueName != null)
+              ? Collections.singleton(ALL_MESSAGE_ATTRIBUTES)
+              : interceptorChain.messageAttributeNames();
 
       deleteMessageQueue = new ArrayBlockingQueue<>(defaultConfig.deleteMessageQueueSize);
+      interceptedDeleteMessageQueue =
+          interceptorChain.isEmpty()
+              ? null
+              : new ArrayBlockingQueue<>(defaultConfig.deleteMessageQueueSize);
+      releaseMessageQueue = new ArrayBlockingQueue<>(defaultConfig.deleteMessageQueueSize);
+      quarantineMessageQueue = new ArrayBlockingQueue<>(defaultConfig.deleteMessageQueueSize);
+      // the pool's work queue is the prefetch buffer, bounded by bufferPermits
+      processingTaskPool =
+          new ThreadPoolExecutor(
+              parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+      // the thread running doProcess() is the first poller, doProcess() bounds the others
+      pollingTaskPool = Executors.newCachedThreadPool();
+      bufferPermits = new ResizableSemaphore(parallelism + prefetchSize);
 
-      Executors.newSingleThreadScheduledExecutor()
-          .scheduleAtFixedRate(
-              () -> {
-                try {
-                  this.doProcess();
-                } catch (Exception e) {
-                  log.error("Error in doProcess()", e);
-                }
-              },
-              0L,
-              pollingFrequency.getSeconds(),
-              TimeUnit.SECONDS);
-
-      Executors.newSingleThreadScheduledExecutor()
-          .scheduleAtFixedRate(
-              () -> {
-                try {
-                  this.delete();
-                } catch (Exception e) {
-                  log.error("Error in delete()", e);
-                }
-              },
-              pollingFrequency.getSeconds() / 2,
-              pollingFrequency.getSeconds(),
-              TimeUnit.SECONDS);
+      pollingScheduler = Executors.newSingleThreadScheduledExecutor();
+      deleteScheduler = new ScheduledThreadPoolExecutor(1);
+      // close() runs the last delete itself instead of waiting for the next scheduled one
+      deleteScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+      scheduleAtPollingFrequency(
+          pollingScheduler,
+          () -> {
+            try {
+              this.doProcess();
+            } catch (Exception e) {
+              // close() interrupts a running poll
+              if (!closed) {
+                log.error("Error in doProcess()", e);
+              }
+            }
+          },
+          0L);
+
+      scheduleAtPollingFrequency(
+          deleteScheduler,
+          () -> {
+            try {
+              this.delete();
+              this.release();
+              this.quarantine();
+            } catch (Exception e) {
+              log.error("Error in delete()", e);
+            }
+          },
+          pollingFrequency.toMillis() / 2);
     } catch (Exception e) {
       throw new SqsListenerException("Error during initialization", e);
     }
@@ -95,20 +204,213 @@ public abstract class SqsListener {
 
   public abstract void process(String message) throws Exception;
 
+  /**
+   * Applies the polling frequency, visibility timeout, parallelism, prefetch size, minimum
+   * remaining visibility, rate limiter, max pollers and receive batch size set in {@code
+   * sqsListenerConfig} to the running listener; settings left unset keep their current value, and
+   * all other settings only take effect at construction. A minimum remaining visibility that was
+   * never set keeps following the visibility timeout. Messages already received keep the visibility
+   * timeout they were received with, and workers beyond a lowered parallelism finish their current
+   * message before they stop.
+   */
+  public synchronized void reconfigure(SqsListenerConfig sqsListenerConfig) {
+    final Duration visibilityTimeout =
+        (sqsListenerConfig.visibilityTimeout == null)
+            ? this.visibilityTimeout
+            : sqsListenerConfig.visibilityTimeout;
+    final Duration minRemainingVisibility;
+    if (sqsListenerConfig.minRemainingVisibility != null) {
+      minRemainingVisibility = sqsListenerConfig.minRemainingVisibility;
+    } else if (!minRemainingVisibilityConfigured) {
+      // the default, a tenth of the visibility timeout
+      minRemainingVisibility = visibilityTimeout.dividedBy(10);
+    } else {
+      minRemainingVisibility = this.minRemainingVisibility;
+    }
+    if (minRemainingVisibility.compareTo(visibilityTimeout) >= 0) {
+      throw new SqsListenerException("minRemainingVisibility must be less than visibilityTimeout");
+    }
+    this.visibilityTimeout = visibilityTimeout;
+    this.minRemainingVisibility = minRemainingVisibility;
+    this.minRemainingVisibilityConfigured |= sqsListenerConfig.minRemainingVisibility != null;
+
+    if (sqsListenerConfig.pollingFrequency != null) {
+      this.pollingFrequency = sqsListenerConfig.pollingFrequency;
+    }
+    final int capacity = this.parallelism + this.prefetchSize;
+    final int parallelism = sqsListenerConfig.parallelism;
+    if (parallelism != 0 && parallelism != this.parallelism) {
+      // the core size may never exceed the maximum size
+      if (parallelism > this.parallelism) {
+        processingTaskPool.setMaximumPoolSize(parallelism);
+        processingTaskPool.setCorePoolSize(parallelism);
+      } else {
+        processingTaskPool.setCorePoolSize(parallelism);
+        processingTaskPool.setMaximumPoolSize(parallelism);
+      }
+      this.parallelism = parallelism;
+    }
+    if (sqsListenerConfig.prefetchSize != null) {
+      this.prefetchSize = sqsListenerConfig.prefetchSize;
+    }
+    // apply the change right away, as a poller may wait for a permit until a message completes;
+    // the next doProcess() scales it to the backlog again
+    final int newCapacity = this.parallelism + this.prefetchSize;
+    bufferPermits.setPermits(
+        Math.min(newCapacity, bufferPermits.getPermits() + Math.max(0, newCapacity - capacity)));
+    if (sqsListenerConfig.rateLimiter != null) {
+      this.rateLimiter = sqsListenerConfig.rateLimiter;
+    }
+    if (sqsListenerConfig.maxPollers != 0) {
+      this.maxPollers = sqsListenerConfig.maxPollers;
+    }
+    if (sqsListenerConfig.receiveBatchSize != 0) {
+      this.receiveBatchSize = sqsListenerConfig.receiveBatchSize;
+    }
+    log.info(
+        "Reconfigured queue {}: pollingFrequency={}, visibilityTimeout={}, parallelism={},"
+            + " prefetchSize={}, maxPollers={}, receiveBatchSize={}",
+        queueName,
+        this.pollingFrequency,
+        this.visibilityTimeout,
+        this.parallelism,
+        this.prefetchSize,
+        this.maxPollers,
+        this.receiveBatchSize);
+  }
+
+  /**
+   * Stops polling, waits up to the visibility timeout for the messages already received to be
+   * processed, deletes them and stops sampling the queue's backlog unless other listeners of the
+   * queue still do. Doesn't close the {@code sqsAsyncClient} of the config.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    pollingScheduler.shutdownNow();
+    pollingTaskPool.shutdownNow();
+    processingTaskPool.shutdown();
+    deleteScheduler.shutdown();
+    try {
+      if (!processingTaskPool.awaitTermination(
+          visibilityTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        log.warn("Closed queue {} with messages still being processed", queueName);
+      }
+      deleteScheduler.awaitTermination(visibilityTimeout.toMillis(), TimeUnit.MILLISECONDS);
+      this.delete();
+      this.release();
+      this.quarantine();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt(); // preserve interrupt
+    } finally {
+      backlogSampler.release();
+    }
+    log.info("Closed queue {}", queueName);
+  }
+
+  /**
+   * Runs {@code task} after {@code delayMillis} and from then on once per polling frequency, read
+   * anew after every run so a reconfigured frequency applies from the next run.
+   */
+  private void scheduleAtPollingFrequency(
+      ScheduledExecutorService scheduler, Runnable task, long delayMillis) {
+    scheduler.schedule(
+        () -> {
+          final long startedAtMillis = System.currentTimeMillis();
+          try {
+            task.run();
+          } finally {
+            final long elapsedMillis = System.currentTimeMillis() - startedAtMillis;
+            if (!closed) {
+              scheduleAtPollingFrequency(
+                  scheduler, task, Math.max(0L, pollingFrequency.toMillis() - elapsedMillis));
+            }
+          }
+        },
+        delayMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
   final void doProcess() {
-    final int totalNoOfMessages = sqsServiceClient.getTotalNumberOfMessages(queueName);
+    if (circuitBreaker != null && circuitBreaker.isOpen()) {
+      log.debug("Circuit breaker is open, skipping poll of queue {}", queueName);
+      return;
+    }
+    final QueueBacklog backlog = backlogSampler.getBacklog();
+    final int totalNoOfMessages = backlog.getVisible();
     log.debug("Found a total of {} no. of messages", totalNoOfMessages);
     if (totalNoOfMessages == 0) {
       return;
     }
 
-    final ExecutorService processingTaskPool =
-        Executors.newFixedThreadPool(Math.min(parallelism, totalNoOfMessages));
-    int processedMsgCount = 0;
-    while (processedMsgCount < totalNoOfMessages) {
-      final Set<SqsMessage> messages =
-          sqsServiceClient.receiveMessage(
-              queueName, pollingFrequency, parallelism, visibilityTimeout);
+    // scale the active workers, the prefetch buffer and the pollers to the backlog
+    int workers = Math.min(parallelism, totalNoOfMessages);
+    int prefetch = Math.min(prefetchSize, totalNoOfMessages - workers);
+    if (priorityGroup != null) {
+      // leave room for higher-priority queues of the group that have a backlog
+      final int limit = priorityGroup.receiveLimit(priority, workers + prefetch);
+      if (limit == 0) {
+        log.debug("Higher-priority queues have a backlog, skipping poll of queue {}", queueName);
+        return;
+      }
+      prefetch = Math.max(0, limit - workers);
+      workers = Math.min(workers, limit);
+    }
+    bufferPermits.setPermits(workers + prefetch);
+    final int pollers =
+        Math.max(
+            1,
+            Math.min(maxPollers, (workers + prefetch + receiveBatchSize - 1) / receiveBatchSize));
+    log.debug(
+        "Using {} workers, {} prefetched messages and {} pollers", workers, prefetch, pollers);
+
+    final AtomicInteger remainingMsgCount = new AtomicInteger(totalNoOfMessages);
+    final List<Future<?>> additionalPollers = new ArrayList<>(pollers - 1);
+    for (int i = 1; i < pollers; i++) {
+      additionalPollers.add(pollingTaskPool.submit(() -> poll(remainingMsgCount)));
+    }
+    try {
+      poll(remainingMsgCount);
+    } finally {
+      for (Future<?> poller : additionalPollers) {
+        try {
+          poller.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt(); // preserve interrupt
+          throw new SqsListenerException("Thread interrupted", e);
+        } catch (ExecutionException e) {
+          log.error("Error in poller of queue {}", queueName, e.getCause());
+        }
+      }
+    }
+  }
+
+  /** Receives and dispatches messages until {@code remainingMsgCount} are received or none are. */
+  private void poll(AtomicInteger remainingMsgCount) {
+    while (remainingMsgCount.get() > 0) {
+      // read once, so permits are returned to the limiter that issued them
+      final RateLimiter rateLimiter = this.rateLimiter;
+      final Duration visibilityTimeout = this.visibilityTimeout;
+      final int permits = acquirePermits(rateLimiter);
+      if (permits == 0) {
+        log.debug("Circuit breaker opened, pausing poll of queue {}", queueName);
+        return;
+      }
+      final List<SqsMessage> messages;
+      try {
+        messages =
+            sqsServiceClient.receiveMessage(
+                queueName, pollingFrequency, permits, visibilityTimeout, messageAttributeNames);
+      } catch (RuntimeException e) {
+        releasePermits(permits, rateLimiter);
+        throw e;
+      }
+      releasePermits(permits - messages.size(), rateLimiter);
 
       if (messages.isEmpty()) {
         log.info("No messages received");
@@ -116,45 +418,173 @@ public abstract class SqsListener {
       }
 
       log.debug("Received {} messages", messages.size());
-      final CompletionService<MsgReceiptHandle> processingTaskService =
-          new ExecutorCompletionService<>(processingTaskPool);
-      messages.forEach(
-          message ->
-              processingTaskService.submit(
-                  () -> {
-                    try {
-                      process(message.body);
-                    } catch (Exception e) {
-                      log.error("Error processing message {}", message.body, e);
-                      return new MsgReceiptHandle(
-                          message.receiptHandle, true, message.receivedCount);
-                    }
-                    return new MsgReceiptHandle(
-                        message.receiptHandle, false, message.receivedCount);
-                  }));
-
       for (int i = 0; i < messages.size(); i++) {
-        try {
-          final Future<MsgReceiptHandle> future = processingTaskService.take();
-          final MsgReceiptHandle msgReceiptHandle = future.get();
-          if (!msgReceiptHandle.erred) {
-            deleteMessageQueue.offer(msgReceiptHandle.receiptHandle);
+        final SqsMessage message = messages.get(i);
+        processingTaskPool.execute(() -> dispatch(message, visibilityTimeout));
+      }
+      remainingMsgCount.addAndGet(-messages.size());
+      release();
+      quarantine();
+    }
+  }
+
+  private void dispatch(SqsMessage message, Duration visibilityTimeout) {
+    if (priorityGroup != null) {
+      // waits for a worker of the group, so check the visibility left afterwards
+      try {
+        priorityGroup.acquire(priority);
+      } catch (RuntimeException e) {
+        bufferPermits.release();
+        throw e;
+      }
+    }
+    try {
+      if (hasEnoughVisibilityLeft(message, visibilityTimeout)) {
+        final boolean processed = handle(message);
+        if (processed) {
+          backlogSampler.recordProcessed();
+        }
+        if (circuitBreaker != null) {
+          if (processed) {
+            circuitBreaker.onSuccess();
           } else {
-            sqsServiceClient.changeVisibilityTimeout(
-                queueName,
-                msgReceiptHandle.receiptHandle,
-                visibilityTimeout.multipliedBy(msgReceiptHandle.receivedCount + 1));
+            circuitBreaker.onFailure();
           }
-          processedMsgCount++;
-        } catch (Exception e) {
-          throw new SqsListenerException("Error occurred processing message", e);
+        }
+      } else {
+        if (circuitBreaker != null) {
+          circuitBreaker.release(1);
+        }
+        if (!releaseMessageQueue.offer(message.receiptHandle)) {
+          log.warn("Release message queue is full, message {}", message.messageId);
         }
       }
+    } finally {
+      if (priorityGroup != null) {
+        priorityGroup.release();
+      }
+      bufferPermits.release();
     }
-    processingTaskPool.shutdown();
+  }
+
+  /**
+   * Returns the backlog of the queue and the number of nodes needed to drain it within {@code
+   * targetDrainTime}, based on the throughput measured on this node.
+   */
+  public ScalingHint getScalingHint() {
+    return new ScalingHint(
+        backlogSampler.getBacklog(), backlogSampler.getThroughput(), targetDrainTime);
+  }
+
+  private boolean hasEnoughVisibilityLeft(SqsMessage message, Duration visibilityTimeout) {
+    final long visibleAt = message.receivedAtMillis + visibilityTimeout.toMillis();
+    return visibleAt - System.currentTimeMillis() >= minRemainingVisibility.toMillis();
+  }
+
+  /**
+   * Returns how many messages may be received next, or 0 if the circuit breaker is open. Blocks
+   * until a worker or buffer slot is free, so every completed message triggers a receive, and then
+   * until the rate limiter allows at least one message.
+   */
+  private int acquirePermits(RateLimiter rateLimiter) {
+    int permits = acquireBufferPermits();
+    if (circuitBreaker != null) {
+      final int granted = circuitBreaker.acquire(permits);
+      bufferPermits.release(permits - granted);
+      permits = granted;
+      if (permits == 0) {
+        return 0;
+      }
+    }
+    if (rateLimiter != null) {
+      final int granted = rateLimiter.acquireUpTo(permits);
+      bufferPermits.release(permits - granted);
+      if (circuitBreaker != null) {
+        circuitBreaker.release(permits - granted);
+      }
+      permits = granted;
+    }
+    return permits;
+  }
+
+  private void releasePermits(int permits, RateLimiter rateLimiter) {
+    bufferPermits.release(permits);
+    if (circuitBreaker != null) {
+      circuitBreaker.release(permits);
+    }
+    if (rateLimiter != null) {
+      rateLimiter.release(permits);
+    }
+  }
+
+  private int acquireBufferPermits() {
+    try {
+      bufferPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt(); // preserve interrupt
+      throw new SqsListenerException("Thread interrupted", e);
+    }
+    int permits = 1;
+    while (permits < receiveBatchSize && bufferPermits.tryAcquire()) {
+      permits++;
+    }
+    return permits;
+  }
+
+  private boolean handle(SqsMessage message) {
+    message.dispatchedAtMillis = System.currentTimeMillis();
+    interceptorChain.beforeProcess(message);
+    try {
+      process(message.body);
+      message.processedAtMillis = System.currentTimeMillis();
+      interceptorChain.afterProcess(message);
+    } catch (Exception e) {
+      message.processedAtMillis = System.currentTimeMillis();
+      interceptorChain.onError(message, e);
+      log.error("Error processing message {}", message.body, e);
+      if (poisonMessageDetector != null) {
+        final int fingerprint = PoisonMessageDetector.fingerprint(e);
+        if (poisonMessageDetector.isPoison(message, fingerprint)) {
+          message.failure = e;
+          message.failureFingerprint = fingerprint;
+          if (quarantineMessageQueue.offer(message)) {
+            log.warn(
+                "Quarantining message {} received {} times to {}",
+                message.messageId,
+                message.receivedCount,
+                deadLetterQueueName);
+            return false;
+          }
+        }
+      }
+      try {
+        sqsServiceClient.changeVisibilityTimeout(
+            queueName,
+            message.receiptHandle,
+            visibilityTimeout.multipliedBy(message.receivedCount + 1));
+      } catch (Exception ex) {
+        log.error("Error changing visibility timeout of message {}", message.messageId, ex);
+      }
+      return false;
+    }
+    if (poisonMessageDetector != null) {
+      poisonMessageDetector.onSuccess(message);
+    }
+    final boolean queued =
+        (interceptedDeleteMessageQueue == null)
+            ? deleteMessageQueue.offer(message.receiptHandle)
+            : interceptedDeleteMessageQueue.offer(message);
+    if (!queued) {
+      log.warn("Delete message queue is full, message {} will be redelivered", message.messageId);
+    }
+    return true;
   }
 
   final void delete() {
+    if (interceptedDeleteMessageQueue != null) {
+      deleteInterceptedMessages();
+      return;
+    }
     if (deleteMessageQueue.isEmpty()) {
       return;
     }
@@ -162,11 +592,194 @@ public abstract class SqsListener {
     final int deleteTaskSize =
         deleteMessageQueue.size() > 10 ? (deleteMessageQueue.size() / 10 + 1) : 1;
     for (int i = 0; i < deleteTaskSize; i++) {
-      final Set<String> toBeDeleted = new HashSet<>(10);
+      final List<String> toBeDeleted = new ArrayList<>(10);
       deleteMessageQueue.drainTo(toBeDeleted, 10);
+      if (toBeDeleted.isEmpty()) {
+        return;
+      }
       log.debug("Messages toBeDeleted = {} ", toBeDeleted.size());
-      sqsServiceClient.deleteMessages(queueName, new HashSet<>(toBeDeleted));
+      sqsServiceClient.deleteMessages(queueName, toBeDeleted);
+    }
+  }
+
+  private void deleteInterceptedMessages() {
+    if (interceptedDeleteMessageQueue.isEmpty()) {
+      return;
+    }
+    log.debug("DeleteMessageQueue size = {} ", interceptedDeleteMessageQueue.size());
+    final int deleteTaskSize =
+        interceptedDeleteMessageQueue.size() > 10
+            ? (interceptedDeleteMessageQueue.size() / 10 + 1)
+            : 1;
+    for (int i = 0; i < deleteTaskSize; i++) {
+      final List<SqsMessage> toBeDeleted = new ArrayList<>(10);
+      interceptedDeleteMessageQueue.drainTo(toBeDeleted, 10);
+      if (toBeDeleted.isEmpty()) {
+        return;
+      }
+      log.debug("Messages toBeDeleted = {} ", toBeDeleted.size());
+      final List<String> receiptHandles = new ArrayList<>(toBeDeleted.size());
+      for (int j = 0; j < toBeDeleted.size(); j++) {
+        receiptHandles.add(toBeDeleted.get(j).receiptHandle);
+      }
+      sqsServiceClient
+          .deleteMessages(queueName, receiptHandles)
+          .whenComplete(
+              (deleted, e) -> {
+                if (e != null) {
+                  log.error("Error deleting {} messages", toBeDeleted.size(), e);
+                  return;
+                }
+                final long deletedAtMillis = System.currentTimeMillis();
+                for (int j = deleted.nextSetBit(0); j >= 0; j = deleted.nextSetBit(j + 1)) {
+                  final SqsMessage message = toBeDeleted.get(j);
+                  message.deletedAtMillis = deletedAtMillis;
+                  interceptorChain.afterDelete(message);
+                }
+              });
+    }
+  }
+
+  /**
+   * Makes prefetched messages that sat in the local buffer too long to be processed safely visible
+   * again right away, rather than letting them be processed after another consumer may have
+   * received them.
+   */
+  final void release() {
+    while (!releaseMessageQueue.isEmpty()) {
+      final List<String> toBeReleased = new ArrayList<>(10);
+      releaseMessageQueue.drainTo(toBeReleased, 10);
+      log.debug("Messages toBeReleased = {} ", toBeReleased.size());
+      sqsServiceClient.changeVisibilityTimeouts(queueName, toBeReleased, Duration.ZERO);
+    }
+  }
+
+  /**
+   * Forwards quarantined poison messages to the dead-letter queue in batches, then deletes the ones
+   * that were sent. Messages that could not be sent are received again once their visibility
+   * timeout expires.
+   */
+  final void quarantine() {
+    while (!quarantineMessageQueue.isEmpty()) {
+      final List<SqsMessage> toBeQuarantined = new ArrayList<>(10);
+      quarantineMessageQueue.drainTo(toBeQuarantined, 10);
+      log.debug("Messages toBeQuarantined = {} ", toBeQuarantined.size());
+      final List<SqsOutboundMessage> batch = new ArrayList<>(toBeQuarantined.size());
+      final List<SqsMessage> batchSources = new ArrayList<>(toBeQuarantined.size());
+      int batchBytes = 0;
+      for (SqsMessage message : toBeQuarantined) {
+        final SqsOutboundMessage outboundMessage = toDeadLetter(queueName, message);
+        final int size = outboundMessage.size();
+        if (batchBytes + size > SqsOutboundMessage.MAX_BATCH_BYTES && !batch.isEmpty()) {
+          sendToDeadLetterQueue(batch, batchSources);
+          batch.clear();
+          batchSources.clear();
+          batchBytes = 0;
+        }
+        batch.add(outboundMessage);
+        batchSources.add(message);
+        batchBytes += size;
+      }
+      sendToDeadLetterQueue(batch, batchSources);
+    }
+  }
+
+  private void sendToDeadLetterQueue(List<SqsOutboundMessage> batch, List<SqsMessage> sources) {
+    try {
+      sqsServiceClient.sendMessages(deadLetterQueueName, batch);
+    } catch (Exception e) {
+      log.error("Error sending {} messages to {}", batch.size(), deadLetterQueueName, e);
+      return;
+    }
+    final List<String> receiptHandles = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      final SqsOutboundMessage sent = batch.get(i);
+      if (sent.messageId != null) {
+        receiptHandles.add(sources.get(i).receiptHandle);
+        poisonMessageDetector.forget(sources.get(i).messageId);
+      } else {
+        log.error(
+            "Error sending message {} to {}: {} {}",
+            sources.get(i).messageId,
+            deadLetterQueueName,
+            sent.errorCode,
+            sent.errorMessage);
+      }
+    }
+    if (!receiptHandles.isEmpty()) {
+      sqsServiceClient.deleteMessages(queueName, receiptHandles);
+    }
+  }
+
+  /**
+   * Copies a quarantined message with all its attributes, and adds the failure metadata attributes
+   * that fit into the attribute slots and the message size left over. The message's own attributes
+   * are never dropped for metadata; the failure message comes last and is shortened to fit.
+   */
+  static SqsOutboundMessage toDeadLetter(String queueName, SqsMessage message) {
+    final Map<String, SqsMessageAttribute> attributes =
+        new HashMap<>((message.messageAttributes.size() + 5) * 2);
+    attributes.putAll(message.messageAttributes);
+    int freeBytes =
+        SqsOutboundMessage.MAX_MESSAGE_BYTES
+            - new SqsOutboundMessage(message.body, message.messageAttributes).size();
+    final String[] names = {
+      SOURCE_QUEUE_ATTRIBUTE,
+      FAILURE_CLASS_ATTRIBUTE,
+      FAILURE_FINGERPRINT_ATTRIBUTE,
+      RECEIVE_COUNT_ATTRIBUTE,
+      FAILURE_MESSAGE_ATTRIBUTE
+    };
+    final String[] values = {
+      queueName,
+      message.failure.getClass().getName(),
+      Integer.toHexString(message.failureFingerprint),
+      String.valueOf(message.receivedCount),
+      String.valueOf(message.failure.getMessage())
+    };
+    List<String> dropped = null;
+    for (int i = 0; i < names.length; i++) {
+      final SqsMessageAttribute previous = attributes.get(names[i]);
+      final int previousSize = (previous == null) ? 0 : previous.size(names[i]);
+      String value = values[i];
+      if (names[i].equals(FAILURE_MESSAGE_ATTRIBUTE)) {
+        final int emptySize = SqsMessageAttribute.ofString("").size(names[i]);
+        value = truncate(value, freeBytes + previousSize - emptySize);
+      }
+      final SqsMessageAttribute attribute = SqsMessageAttribute.ofString(value);
+      final int size = attribute.size(names[i]);
+      if ((previous == null && attributes.size() >= MAX_MESSAGE_ATTRIBUTES)
+          || size - previousSize > freeBytes) {
+        if (dropped == null) {
+          dropped = new ArrayList<>(names.length);
+        }
+        dropped.add(names[i]);
+        continue;
+      }
+      attributes.put(names[i], attribute);
+      freeBytes -= size - previousSize;
+    }
+    if (dropped != null) {
+      log.warn(
+          "Message {} has too many attributes or is too large to add failure metadata {}",
+          message.messageId,
+          dropped);
+    }
+    return new SqsOutboundMessage(message.body, attributes);
+  }
+
+  /** Shortens {@code value} to at most MAX_FAILURE_MESSAGE_LENGTH chars and {@code maxBytes}. */
+  private static String truncate(String value, int maxBytes) {
+    if (maxBytes <= 0) {
+      return "";
+    }
+    int end = Math.min(value.length(), Math.min(MAX_FAILURE_MESSAGE_LENGTH, maxBytes));
+    while (end > 0
+        && (Character.isHighSurrogate(value.charAt(end - 1))
+            || SqsMessageAttribute.utf8Length(value.substring(0, end)) > maxBytes)) {
+      end--;
     }
+    return (end == value.length()) ? value : value.substring(0, end);
   }
 
   enum DefaultConfig {
@@ -175,7 +788,16 @@ public abstract class SqsListener {
     final Duration visibilityTimeout;
     final Duration pollingFrequency;
     final int parallelism;
+    final int prefetchSize;
+    final int maxPollers;
+    final int receiveBatchSize;
+    final Duration backlogSamplingInterval;
+    final Duration targetDrainTime;
     final int deleteMessageQueueSize;
+    final Duration publisherLinger;
+    final int publisherMaxConcurrency;
+    final int publisherMaxPendingMessages;
+    final int publisherMaxRetries;
 
     DefaultConfig() {
       try (InputStream input =
@@ -188,8 +810,22 @@ public abstract class SqsListener {
         pollingFrequency =
             Duration.ofSeconds(Long.parseLong(properties.getProperty("polling-frequency")));
         parallelism = Integer.parseInt(properties.getProperty("parallelism"));
+        prefetchSize = Integer.parseInt(properties.getProperty("prefetch-size"));
+        maxPollers = Integer.parseInt(properties.getProperty("max-pollers"));
+        receiveBatchSize = Integer.parseInt(properties.getProperty("receive-batch-size"));
+        backlogSamplingInterval =
+            Duration.ofSeconds(Long.parseLong(properties.getProperty("backlog-sampling-interval")));
+        targetDrainTime =
+            Duration.ofSeconds(Long.parseLong(properties.getProperty("target-drain-time")));
         deleteMessageQueueSize =
             Integer.parseInt(properties.getProperty("delete-message-queue-size"));
+        publisherLinger =
+            Duration.ofMillis(Long.parseLong(properties.getProperty("publisher-linger-ms")));
+        publisherMaxConcurrency =
+            Integer.parseInt(properties.getProperty("publisher-max-concurrency"));
+        publisherMaxPendingMessages =
+            Integer.parseInt(properties.getProperty("publisher-max-pending-messages"));
+        publisherMaxRetries = Integer.parseInt(properties.getProperty("publisher-max-retries"));
       } catch (IOException e) {
         throw new IllegalArgumentException("Error loading properties", e);
       }
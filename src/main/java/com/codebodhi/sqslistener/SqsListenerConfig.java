@@ -1,16 +1,46 @@
 package com.codebodhi.sqslistener;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 
 public class SqsListenerConfig {
   Duration pollingFrequency;
   Duration visibilityTimeout;
   int parallelism;
+  Integer prefetchSize;
+  Duration minRemainingVisibility;
+  RateLimiter rateLimiter;
+  double circuitBreakerFailureRateThreshold;
+  Duration circuitBreakerOpenDuration;
+  String deadLetterQueueName;
+  int deadLetterMaxReceiveCount;
+  int maxPollers;
+  int receiveBatchSize;
+  Duration backlogSamplingInterval;
+  Duration targetDrainTime;
+  List<SqsListenerInterceptor> interceptors = new ArrayList<>();
   SqsAsyncClient sqsAsyncClient;
 
   private SqsListenerConfig() {}
 
+  private SqsListenerConfig(SqsListenerConfig other) {
+    this(other.pollingFrequency, other.visibilityTimeout, other.parallelism, other.sqsAsyncClient);
+    this.prefetchSize = other.prefetchSize;
+    this.minRemainingVisibility = other.minRemainingVisibility;
+    this.rateLimiter = other.rateLimiter;
+    this.circuitBreakerFailureRateThreshold = other.circuitBreakerFailureRateThreshold;
+    this.circuitBreakerOpenDuration = other.circuitBreakerOpenDuration;
+    this.deadLetterQueueName = other.deadLetterQueueName;
+    this.deadLetterMaxReceiveCount = other.deadLetterMaxReceiveCount;
+    this.maxPollers = other.maxPollers;
+    this.receiveBatchSize = other.receiveBatchSize;
+    this.backlogSamplingInterval = other.backlogSamplingInterval;
+    this.targetDrainTime = other.targetDrainTime;
+    this.interceptors = new ArrayList<>(other.interceptors);
+  }
+
   public static SqsListenerConfig builder() {
     return new SqsListenerConfig();
   }
@@ -46,12 +76,126 @@ public class SqsListenerConfig {
     return this;
   }
 
+  /**
+   * Number of messages to receive ahead of worker demand and hold in a local buffer, hiding the
+   * receive latency from short handlers. Defaults to 0 (no prefetching).
+   */
+  public SqsListenerConfig prefetchSize(int prefetchSize) {
+    if (prefetchSize < 0) {
+      throw new SqsListenerException("Invalid value for prefetchSize! It can't be negative");
+    }
+    this.prefetchSize = prefetchSize;
+    return this;
+  }
+
+  /**
+   * A buffered message whose remaining visibility window is shorter than this is made visible again
+   * instead of being processed. Defaults to a tenth of the visibility timeout.
+   */
+  public SqsListenerConfig minRemainingVisibility(Duration minRemainingVisibility) {
+    this.minRemainingVisibility = minRemainingVisibility;
+    return this;
+  }
+
+  /**
+   * Caps the rate at which messages are received and dispatched. Pass the same instance to several
+   * listeners to share one limit between them.
+   */
+  public SqsListenerConfig rateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+    return this;
+  }
+
+  /**
+   * Pauses polling for {@code openDuration} when at least {@code failureRateThreshold} (0-1] of the
+   * recently processed messages failed, then resumes gradually.
+   */
+  public SqsListenerConfig circuitBreaker(double failureRateThreshold, Duration openDuration) {
+    if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+      throw new SqsListenerException(
+          "Invalid value for failureRateThreshold! Valid values are from (0-1]");
+    }
+    this.circuitBreakerFailureRateThreshold = failureRateThreshold;
+    this.circuitBreakerOpenDuration = openDuration;
+    return this;
+  }
+
+  /**
+   * Forwards poison messages to {@code deadLetterQueueName} with failure metadata attributes and
+   * deletes them, instead of retrying them until the queue's redrive policy kicks in. A message is
+   * poison when it fails on its {@code maxReceiveCount}-th receive, or earlier when it fails twice
+   * in a row in the same way while at least 3 other messages were processed successfully in the
+   * meantime. Messages failing while nothing else succeeds, e.g. during a database outage, are
+   * retried until {@code maxReceiveCount}.
+   */
+  public SqsListenerConfig deadLetterQueue(String deadLetterQueueName, int maxReceiveCount) {
+    if (maxReceiveCount < 1) {
+      throw new SqsListenerException("Invalid value for maxReceiveCount! It must be at least 1");
+    }
+    this.deadLetterQueueName = deadLetterQueueName;
+    this.deadLetterMaxReceiveCount = maxReceiveCount;
+    return this;
+  }
+
+  /**
+   * Upper bound for the number of concurrent receive calls, used when a deep backlog and a prefetch
+   * buffer leave room for more messages than one receive returns. Defaults to 1.
+   */
+  public SqsListenerConfig maxPollers(int maxPollers) {
+    if (maxPollers < 0) {
+      throw new SqsListenerException("Invalid value for maxPollers! It can't be negative");
+    }
+    this.maxPollers = maxPollers;
+    return this;
+  }
+
+  /**
+   * Maximum number of messages requested by one receive call, from 1-10. Defaults to 10; lower it
+   * to spread messages over more nodes.
+   */
+  public SqsListenerConfig receiveBatchSize(int receiveBatchSize) {
+    if (receiveBatchSize < 1 || receiveBatchSize > 10) {
+      throw new SqsListenerException(
+          "Invalid value for receiveBatchSize! Valid values are from 1-10");
+    }
+    this.receiveBatchSize = receiveBatchSize;
+    return this;
+  }
+
+  /**
+   * How often the queue's backlog is sampled. Defaults to 10 seconds. Listeners of the same queue
+   * and client in a JVM share one sampler, so only the first listener's interval applies; a
+   * different interval on a later listener is logged and ignored.
+   */
+  public SqsListenerConfig backlogSamplingInterval(Duration backlogSamplingInterval) {
+    this.backlogSamplingInterval = backlogSamplingInterval;
+    return this;
+  }
+
+  /**
+   * How quickly the backlog should be drained, used to compute {@link
+   * ScalingHint#getDesiredReplicas()}. Defaults to 60 seconds.
+   */
+  public SqsListenerConfig targetDrainTime(Duration targetDrainTime) {
+    this.targetDrainTime = targetDrainTime;
+    return this;
+  }
+
+  /**
+   * Adds an interceptor around message processing, e.g. {@link SlowMessageDetector}. Can be called
+   * multiple times to build a chain.
+   */
+  public SqsListenerConfig interceptor(SqsListenerInterceptor interceptor) {
+    this.interceptors.add(interceptor);
+    return this;
+  }
+
   public SqsListenerConfig sqsClient(SqsAsyncClient sqsAsyncClient) {
     this.sqsAsyncClient = sqsAsyncClient;
     return this;
   }
 
   public SqsListenerConfig build() {
-    return new SqsListenerConfig(pollingFrequency, visibilityTimeout, parallelism, sqsAsyncClient);
+    return new SqsListenerConfig(this);
   }
 }
@@ -0,0 +1,167 @@
+package com.codebodhi.sqslistener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reconfigures running listeners from a properties file whenever it changes, e.g. one mounted from
+ * a Kubernetes ConfigMap:
+ *
+ * <pre>{@code
+ * new SqsListenerConfigWatcher(Paths.get("/etc/my-app/listener.properties"), listener::reconfigure);
+ * }</pre>
+ *
+ * <p>The file uses the keys of the bundled {@code config.properties}: {@code polling-frequency},
+ * {@code visibility-timeout}, {@code min-remaining-visibility} (seconds), {@code parallelism},
+ * {@code prefetch-size}, {@code max-pollers}, {@code receive-batch-size} and {@code rate-limit}
+ * (messages per second). Keys left out keep their current value, as a file may briefly be seen
+ * half-written; in particular a {@code rate-limit} can be changed but not removed, so raise it
+ * instead. An invalid file, or one the target rejects, is logged and skipped.
+ */
+public class SqsListenerConfigWatcher implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(SqsListenerConfigWatcher.class);
+  private final Path file;
+  private final Consumer<SqsListenerConfig> target;
+  private final WatchService watchService;
+  private Properties appliedProperties;
+  // kept so a changed rate doesn't reset the tokens already accumulated
+  private RateLimiter rateLimiter;
+
+  /**
+   * Applies {@code file}, if it exists, and then every change to it to {@code target}, usually
+   * {@link SqsListener#reconfigure(SqsListenerConfig)}.
+   */
+  public SqsListenerConfigWatcher(Path file, Consumer<SqsListenerConfig> target) {
+    this.file = file.toAbsolutePath();
+    this.target = target;
+    try {
+      this.watchService = FileSystems.getDefault().newWatchService();
+      this.file
+          .getParent()
+          .register(
+              watchService,
+              StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException e) {
+      throw new SqsListenerException("Error watching " + file, e);
+    }
+    apply();
+    final Thread thread = new Thread(this::watch, "sqs-listener-config-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public void close() {
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      log.warn("Error closing watch service of {}", file, e);
+    }
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        final WatchKey key = watchService.take();
+        // any event counts: a ConfigMap update only swaps the ..data symlink the file points
+        // through, and apply() skips files whose content didn't change
+        key.pollEvents();
+        apply();
+        if (!key.reset()) {
+          log.warn("Stopped watching {}, its directory is no longer accessible", file);
+          return;
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      log.debug("Stopped watching {}", file);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt(); // preserve interrupt
+    }
+  }
+
+  private synchronized void apply() {
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      final Properties properties = new Properties();
+      try (InputStream input = Files.newInputStream(file)) {
+        properties.load(input);
+      }
+      // editors and ConfigMap updates often report one change several times
+      if (properties.equals(appliedProperties)) {
+        return;
+      }
+      final String rateLimit = properties.getProperty("rate-limit");
+      // validates the rate; only used if no limiter was applied yet
+      final RateLimiter newRateLimiter =
+          (rateLimit == null) ? null : new RateLimiter(Double.parseDouble(rateLimit.trim()));
+      target.accept(
+          toConfig(
+              properties,
+              (newRateLimiter == null || rateLimiter == null) ? newRateLimiter : rateLimiter));
+      // the limiter is shared with the running listener, so only change it once accepted
+      if (newRateLimiter != null) {
+        if (rateLimiter == null) {
+          rateLimiter = newRateLimiter;
+        } else {
+          rateLimiter.setPermitsPerSecond(newRateLimiter.getPermitsPerSecond());
+        }
+      }
+      appliedProperties = properties;
+      log.info("Applied listener config from {}", file);
+    } catch (Exception e) {
+      log.error("Error applying listener config from {}", file, e);
+    }
+  }
+
+  private static SqsListenerConfig toConfig(Properties properties, RateLimiter rateLimiter) {
+    final SqsListenerConfig config = SqsListenerConfig.builder();
+    final String pollingFrequency = properties.getProperty("polling-frequency");
+    if (pollingFrequency != null) {
+      config.pollingFrequency(Duration.ofSeconds(Long.parseLong(pollingFrequency.trim())));
+    }
+    final String visibilityTimeout = properties.getProperty("visibility-timeout");
+    if (visibilityTimeout != null) {
+      config.visibilityTimeout(Duration.ofSeconds(Long.parseLong(visibilityTimeout.trim())));
+    }
+    final String minRemainingVisibility = properties.getProperty("min-remaining-visibility");
+    if (minRemainingVisibility != null) {
+      config.minRemainingVisibility(
+          Duration.ofSeconds(Long.parseLong(minRemainingVisibility.trim())));
+    }
+    final String parallelism = properties.getProperty("parallelism");
+    if (parallelism != null) {
+      config.parallelism(Integer.parseInt(parallelism.trim()));
+    }
+    final String prefetchSize = properties.getProperty("prefetch-size");
+    if (prefetchSize != null) {
+      config.prefetchSize(Integer.parseInt(prefetchSize.trim()));
+    }
+    final String maxPollers = properties.getProperty("max-pollers");
+    if (maxPollers != null) {
+      config.maxPollers(Integer.parseInt(maxPollers.trim()));
+    }
+    final String receiveBatchSize = properties.getProperty("receive-batch-size");
+    if (receiveBatchSize != null) {
+      config.receiveBatchSize(Integer.parseInt(receiveBatchSize.trim()));
+    }
+    if (rateLimiter != null) {
+      config.rateLimiter(rateLimiter);
+    }
+    return config.build();
+  }
+}
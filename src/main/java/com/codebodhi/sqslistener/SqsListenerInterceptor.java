@@ -0,0 +1,26 @@
+package com.codebodhi.sqslistener;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Callbacks around {@link SqsListener#process(String)}. Interceptors are invoked in registration
+ * order before processing and in reverse order afterwards. {@link #beforeProcess}, {@link
+ * #afterProcess} and {@link #onError} run on the worker thread processing the message; {@link
+ * #afterDelete} runs once SQS confirmed that the message was deleted, on the thread completing the
+ * delete request. Exceptions thrown by an interceptor are logged and otherwise ignored.
+ */
+public interface SqsListenerInterceptor {
+  /** Names of the message attributes to receive along with the message, e.g. trace headers. */
+  default Set<String> messageAttributeNames() {
+    return Collections.emptySet();
+  }
+
+  default void beforeProcess(SqsMessageContext message) {}
+
+  default void afterProcess(SqsMessageContext message) {}
+
+  default void onError(SqsMessageContext message, Exception e) {}
+
+  default void afterDelete(SqsMessageContext message) {}
+}
@@ -1,24 +1,109 @@
 package com.codebodhi.sqslistener;
 
-import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
-class SqsMessage {
+class SqsMessage implements SqsMessageContext {
+  String queueName;
   String messageId;
   String receiptHandle;
   String body;
-  Instant firstReceivedTimestamp;
-  Integer receivedCount;
+  long firstReceivedTimestamp;
+  int receivedCount;
+  Map<String, SqsMessageAttribute> messageAttributes;
+  // built from messageAttributes when an interceptor first asks for it
+  private Map<String, String> stringMessageAttributes;
+  long sentTimestamp;
+  long receivedAtMillis;
+  long dispatchedAtMillis;
+  long processedAtMillis;
+  long deletedAtMillis;
+  Exception failure;
+  int failureFingerprint;
 
   SqsMessage(
+      String queueName,
       String messageId,
       String receiptHandle,
       String body,
-      Instant firstReceivedTimestamp,
-      Integer receivedCount) {
+      long firstReceivedTimestamp,
+      int receivedCount,
+      Map<String, SqsMessageAttribute> messageAttributes,
+      long sentTimestamp,
+      long receivedAtMillis) {
+    this.queueName = queueName;
     this.messageId = messageId;
     this.receiptHandle = receiptHandle;
     this.body = body;
     this.firstReceivedTimestamp = firstReceivedTimestamp;
     this.receivedCount = receivedCount;
+    this.messageAttributes = messageAttributes;
+    this.sentTimestamp = sentTimestamp;
+    this.receivedAtMillis = receivedAtMillis;
+  }
+
+  @Override
+  public String getQueueName() {
+    return queueName;
+  }
+
+  @Override
+  public String getMessageId() {
+    return messageId;
+  }
+
+  @Override
+  public String getBody() {
+    return body;
+  }
+
+  @Override
+  public int getReceivedCount() {
+    return receivedCount;
+  }
+
+  @Override
+  public Map<String, String> getMessageAttributes() {
+    if (stringMessageAttributes == null) {
+      if (messageAttributes.isEmpty()) {
+        stringMessageAttributes = Collections.emptyMap();
+      } else {
+        final Map<String, String> attributes = new HashMap<>(messageAttributes.size() * 2);
+        messageAttributes.forEach(
+            (name, value) -> {
+              if (value.stringValue != null) {
+                attributes.put(name, value.stringValue);
+              }
+            });
+        stringMessageAttributes = Collections.unmodifiableMap(attributes);
+      }
+    }
+    return stringMessageAttributes;
+  }
+
+  @Override
+  public long getSentTimestamp() {
+    return sentTimestamp;
+  }
+
+  @Override
+  public long getReceivedTimestamp() {
+    return receivedAtMillis;
+  }
+
+  @Override
+  public long getDispatchedTimestamp() {
+    return dispatchedAtMillis;
+  }
+
+  @Override
+  public long getProcessedTimestamp() {
+    return processedAtMillis;
+  }
+
+  @Override
+  public long getDeletedTimestamp() {
+    return deletedAtMillis;
   }
 }
@@ -0,0 +1,86 @@
+package com.codebodhi.sqslistener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A message attribute with its SQS data type, e.g. {@code String}, {@code Number.float} or {@code
+ * Binary.png}, so it can be sent on unchanged. Binary attributes carry {@code binaryValue}, all
+ * others {@code stringValue}.
+ */
+class SqsMessageAttribute {
+  final String dataType;
+  final String stringValue;
+  final byte[] binaryValue;
+
+  SqsMessageAttribute(String dataType, String stringValue, byte[] binaryValue) {
+    this.dataType = dataType;
+    this.stringValue = stringValue;
+    this.binaryValue = binaryValue;
+  }
+
+  static SqsMessageAttribute ofString(String value) {
+    return new SqsMessageAttribute("String", value, null);
+  }
+
+  static Map<String, SqsMessageAttribute> ofStrings(Map<String, String> values) {
+    if (values.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    final Map<String, SqsMessageAttribute> attributes = new HashMap<>(values.size() * 2);
+    values.forEach((name, value) -> attributes.put(name, ofString(value)));
+    return attributes;
+  }
+
+  /** The bytes the attribute named {@code name} counts towards the message size limit. */
+  int size(String name) {
+    return utf8Length(name)
+        + utf8Length(dataType)
+        + ((binaryValue != null) ? binaryValue.length : utf8Length(stringValue));
+  }
+
+  static int utf8Length(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c)) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof SqsMessageAttribute)) {
+      return false;
+    }
+    final SqsMessageAttribute other = (SqsMessageAttribute) o;
+    return dataType.equals(other.dataType)
+        && Objects.equals(stringValue, other.stringValue)
+        && Arrays.equals(binaryValue, other.binaryValue);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * dataType.hashCode() + Objects.hashCode(stringValue);
+  }
+
+  @Override
+  public String toString() {
+    return dataType + ":" + ((binaryValue != null) ? binaryValue.length + " bytes" : stringValue);
+  }
+}
@@ -0,0 +1,41 @@
+package com.codebodhi.sqslistener;
+
+import java.util.Map;
+
+/**
+ * A message as seen by a {@link SqsListenerInterceptor}. All timestamps are epoch milliseconds and
+ * are 0 until the message reaches the corresponding stage:
+ *
+ * <ul>
+ *   <li>sent → received: time spent waiting in SQS
+ *   <li>received → dispatched: time spent waiting locally for a worker
+ *   <li>dispatched → processed: time spent in {@link SqsListener#process(String)}
+ *   <li>processed → deleted: time spent waiting for the batched delete
+ * </ul>
+ */
+public interface SqsMessageContext {
+  String getQueueName();
+
+  String getMessageId();
+
+  String getBody();
+
+  int getReceivedCount();
+
+  /**
+   * The values of the String and Number message attributes requested through {@link
+   * SqsListenerInterceptor#messageAttributeNames()}, or of all of them when a dead-letter queue is
+   * configured.
+   */
+  Map<String, String> getMessageAttributes();
+
+  long getSentTimestamp();
+
+  long getReceivedTimestamp();
+
+  long getDispatchedTimestamp();
+
+  long getProcessedTimestamp();
+
+  long getDeletedTimestamp();
+}
@@ -0,0 +1,34 @@
+package com.codebodhi.sqslistener;
+
+import java.util.Collections;
+import java.util.Map;
+
+class SqsOutboundMessage {
+  static final int MAX_BATCH_BYTES = 256 * 1024;
+  static final int MAX_MESSAGE_BYTES = 256 * 1024;
+  String body;
+  Map<String, SqsMessageAttribute> messageAttributes;
+  // set by SqsServiceClient#sendMessages, either messageId or errorCode
+  String messageId;
+  String errorCode;
+  String errorMessage;
+  boolean senderFault;
+
+  SqsOutboundMessage(String body) {
+    this(body, Collections.emptyMap());
+  }
+
+  SqsOutboundMessage(String body, Map<String, SqsMessageAttribute> messageAttributes) {
+    this.body = body;
+    this.messageAttributes = messageAttributes;
+  }
+
+  /** The bytes this message counts towards the message and batch size limits. */
+  int size() {
+    int size = SqsMessageAttribute.utf8Length(body);
+    for (Map.Entry<String, SqsMessageAttribute> attribute : messageAttributes.entrySet()) {
+      size += attribute.getValue().size(attribute.getKey());
+    }
+    return size;
+  }
+}
@@ -0,0 +1,104 @@
+package com.codebodhi.sqslistener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consumes several queues with one handler and one worker budget of {@code parallelism} messages,
+ * e.g. a high, a normal and a bulk queue, so bulk traffic can't starve high-priority work. Each
+ * queue is polled into its own prefetch buffer. Freed workers go to the highest-priority queue with
+ * messages waiting (strict priority), or are shared in proportion to the queues' weights (weighted
+ * fair). While a higher-priority queue has a backlog, lower-priority queues only receive what the
+ * higher ones leave idle (strict) or their weighted share (weighted fair).
+ *
+ * <p>All other settings of the {@link SqsListenerConfig} apply to every queue.
+ */
+public abstract class SqsPriorityListener implements AutoCloseable {
+  private final List<String> queueNames;
+  private final List<SqsListener> listeners;
+  private final PriorityGroup priorityGroup;
+
+  /** Strict priority, {@code queueNames} ordered from highest to lowest priority. */
+  public SqsPriorityListener(List<String> queueNames, SqsListenerConfig sqsListenerConfig) {
+    this(queueNames, null, sqsListenerConfig);
+  }
+
+  /**
+   * Weighted fair scheduling, {@code queueNames} ordered from highest to lowest priority and each
+   * given a share of the workers proportional to its weight.
+   */
+  public SqsPriorityListener(
+      List<String> queueNames, List<Integer> weights, SqsListenerConfig sqsListenerConfig) {
+    if (queueNames.isEmpty()) {
+      throw new SqsListenerException("At least one queue name is required");
+    }
+    if (weights != null && weights.size() != queueNames.size()) {
+      throw new SqsListenerException("A weight is required for each queue");
+    }
+    final int parallelism =
+        (sqsListenerConfig.parallelism == 0)
+            ? SqsListener.DefaultConfig.INSTANCE.parallelism
+            : sqsListenerConfig.parallelism;
+    final int[] weightArray = (weights == null) ? null : new int[weights.size()];
+    if (weights != null) {
+      for (int i = 0; i < weights.size(); i++) {
+        if (weights.get(i) < 1) {
+          throw new SqsListenerException("Invalid weight! Weights must be at least 1");
+        }
+        weightArray[i] = weights.get(i);
+      }
+    }
+    this.priorityGroup = new PriorityGroup(queueNames.size(), parallelism, weightArray);
+
+    this.queueNames = Collections.unmodifiableList(new ArrayList<>(queueNames));
+    final List<SqsListener> listeners = new ArrayList<>(queueNames.size());
+    for (int priority = 0; priority < queueNames.size(); priority++) {
+      listeners.add(
+          new SqsListener(
+              queueNames.get(priority),
+              sqsListenerConfig,
+              SqsServiceClient.create(sqsListenerConfig.sqsAsyncClient),
+              priorityGroup,
+              priority) {
+            @Override
+            public void process(String message) throws Exception {
+              SqsPriorityListener.this.process(message);
+            }
+          });
+    }
+    this.listeners = Collections.unmodifiableList(listeners);
+  }
+
+  public abstract void process(String message) throws Exception;
+
+  /**
+   * Applies the settings that {@link SqsListener#reconfigure(SqsListenerConfig)} can change to the
+   * listeners of all queues, and resizes the shared worker budget to a changed parallelism.
+   */
+  public synchronized void reconfigure(SqsListenerConfig sqsListenerConfig) {
+    for (SqsListener listener : listeners) {
+      listener.reconfigure(sqsListenerConfig);
+    }
+    if (sqsListenerConfig.parallelism != 0) {
+      priorityGroup.setPermits(sqsListenerConfig.parallelism);
+    }
+  }
+
+  /** Closes the listeners of all queues, see {@link SqsListener#close()}. */
+  @Override
+  public void close() {
+    for (SqsListener listener : listeners) {
+      listener.close();
+    }
+  }
+
+  public List<String> getQueueNames() {
+    return queueNames;
+  }
+
+  /** Returns the scaling hint of the queue at position {@code priority} of the queue names. */
+  public ScalingHint getScalingHint(int priority) {
+    return listeners.get(priority).getScalingHint();
+  }
+}
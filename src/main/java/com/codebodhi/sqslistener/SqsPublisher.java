@@ -0,0 +1,207 @@
+package com.codebodhi.sqslistener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes messages to a queue, batching them into SendMessageBatch requests of up to 10 entries
+ * and 256 KB. A batch is sent as soon as it is full, or after the configured linger time. Up to
+ * {@code maxConcurrency} batches are sent at the same time, and entries that failed for a reason
+ * other than the request itself are retried on their own. {@link #publish(String)} blocks while
+ * {@code maxPendingMessages} messages are waiting to be sent.
+ */
+public class SqsPublisher implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(SqsPublisher.class);
+  private static final int MAX_BATCH_SIZE = 10;
+  private static final long RETRY_BACKOFF_MILLIS = 100;
+  private final String queueName;
+  private final Duration linger;
+  private final int maxRetries;
+  private final SqsServiceClient sqsServiceClient;
+  private final Semaphore pendingPermits;
+  private final ExecutorService sendingTaskPool;
+  private final ScheduledExecutorService lingerScheduler;
+  private List<PendingMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+  private int batchBytes;
+  private boolean closed;
+
+  private static class PendingMessage extends SqsOutboundMessage {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+
+    PendingMessage(String body, Map<String, String> messageAttributes) {
+      super(body, SqsMessageAttribute.ofStrings(messageAttributes));
+    }
+  }
+
+  public SqsPublisher(String queueName) {
+    this(queueName, SqsPublisherConfig.builder().build());
+  }
+
+  public SqsPublisher(String queueName, SqsPublisherConfig sqsPublisherConfig) {
+    this(queueName, sqsPublisherConfig, SqsServiceClient.create(sqsPublisherConfig.sqsAsyncClient));
+  }
+
+  SqsPublisher(
+      String queueName, SqsPublisherConfig sqsPublisherConfig, SqsServiceClient sqsServiceClient) {
+    final SqsListener.DefaultConfig defaultConfig = SqsListener.DefaultConfig.INSTANCE;
+    this.queueName = queueName;
+    this.linger =
+        (sqsPublisherConfig.linger == null)
+            ? defaultConfig.publisherLinger
+            : sqsPublisherConfig.linger;
+    this.maxRetries =
+        (sqsPublisherConfig.maxRetries == null)
+            ? defaultConfig.publisherMaxRetries
+            : sqsPublisherConfig.maxRetries;
+    final int maxConcurrency =
+        (sqsPublisherConfig.maxConcurrency == 0)
+            ? defaultConfig.publisherMaxConcurrency
+            : sqsPublisherConfig.maxConcurrency;
+    final int maxPendingMessages =
+        (sqsPublisherConfig.maxPendingMessages == 0)
+            ? defaultConfig.publisherMaxPendingMessages
+            : sqsPublisherConfig.maxPendingMessages;
+    this.sqsServiceClient = sqsServiceClient;
+    this.pendingPermits = new Semaphore(maxPendingMessages);
+    this.sendingTaskPool = Executors.newFixedThreadPool(maxConcurrency);
+    this.lingerScheduler = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  /**
+   * Queues a message to be sent in the next batch, blocking while too many messages are pending.
+   *
+   * @return a future completed with the message id once sent, or exceptionally if it could not be
+   */
+  public CompletableFuture<String> publish(String body) {
+    return publish(body, Collections.emptyMap());
+  }
+
+  public CompletableFuture<String> publish(String body, Map<String, String> messageAttributes) {
+    final PendingMessage message = new PendingMessage(body, messageAttributes);
+    final int size = message.size();
+    if (size > SqsOutboundMessage.MAX_BATCH_BYTES) {
+      message.future.completeExceptionally(
+          new SqsListenerException("Message size " + size + " exceeds the 256 KB limit"));
+      return message.future;
+    }
+    try {
+      pendingPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt(); // preserve interrupt
+      throw new SqsListenerException("Thread interrupted", e);
+    }
+    synchronized (this) {
+      if (closed) {
+        pendingPermits.release();
+        throw new SqsListenerException("Publisher is closed");
+      }
+      if (batchBytes + size > SqsOutboundMessage.MAX_BATCH_BYTES) {
+        dispatch();
+      }
+      batch.add(message);
+      batchBytes += size;
+      if (batch.size() == MAX_BATCH_SIZE) {
+        dispatch();
+      } else if (batch.size() == 1) {
+        final List<PendingMessage> lingering = batch;
+        lingerScheduler.schedule(
+            () -> {
+              synchronized (this) {
+                if (batch == lingering) {
+                  dispatch();
+                }
+              }
+            },
+            linger.toMillis(),
+            TimeUnit.MILLISECONDS);
+      }
+    }
+    return message.future;
+  }
+
+  /** Sends the current batch right away, without waiting for it to fill up. */
+  public synchronized void flush() {
+    if (!batch.isEmpty()) {
+      dispatch();
+    }
+  }
+
+  /** Sends the pending messages and waits for them to be sent. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      flush();
+    }
+    lingerScheduler.shutdownNow();
+    sendingTaskPool.shutdown();
+    try {
+      sendingTaskPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt(); // preserve interrupt
+      throw new SqsListenerException("Thread interrupted", e);
+    }
+  }
+
+  private void dispatch() {
+    final List<PendingMessage> toBeSent = batch;
+    batch = new ArrayList<>(MAX_BATCH_SIZE);
+    batchBytes = 0;
+    sendingTaskPool.execute(() -> send(toBeSent));
+  }
+
+  private void send(List<PendingMessage> messages) {
+    List<PendingMessage> toBeSent = messages;
+    for (int attempt = 0; !toBeSent.isEmpty(); attempt++) {
+      if (attempt > 0) {
+        backoff(attempt);
+      }
+      final boolean lastAttempt = attempt >= maxRetries;
+      try {
+        sqsServiceClient.sendMessages(queueName, toBeSent);
+      } catch (Exception e) {
+        log.warn("Error sending {} messages to {}", toBeSent.size(), queueName, e);
+        if (lastAttempt) {
+          toBeSent.forEach(message -> fail(message, e));
+          return;
+        }
+        continue;
+      }
+      final List<PendingMessage> failed = new ArrayList<>(0);
+      for (PendingMessage message : toBeSent) {
+        if (message.messageId != null) {
+          pendingPermits.release();
+          message.future.complete(message.messageId);
+        } else if (message.senderFault || lastAttempt) {
+          fail(
+              message,
+              new SqsListenerException(
+                  "Error sending message: " + message.errorCode + " " + message.errorMessage));
+        } else {
+          failed.add(message);
+        }
+      }
+      toBeSent = failed;
+    }
+  }
+
+  private void fail(PendingMessage message, Exception e) {
+    pendingPermits.release();
+    message.future.completeExceptionally(e);
+  }
+
+  private static void backoff(int attempt) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(RETRY_BACKOFF_MILLIS << Math.min(attempt - 1, 6));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt(); // preserve interrupt
+      throw new SqsListenerException("Thread interrupted", e);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.codebodhi.sqslistener;
+
+import java.time.Duration;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+public class SqsPublisherConfig {
+  Duration linger;
+  int maxConcurrency;
+  int maxPendingMessages;
+  Integer maxRetries;
+  SqsAsyncClient sqsAsyncClient;
+
+  private SqsPublisherConfig() {}
+
+  private SqsPublisherConfig(SqsPublisherConfig other) {
+    this.linger = other.linger;
+    this.maxConcurrency = other.maxConcurrency;
+    this.maxPendingMessages = other.maxPendingMessages;
+    this.maxRetries = other.maxRetries;
+    this.sqsAsyncClient = other.sqsAsyncClient;
+  }
+
+  public static SqsPublisherConfig builder() {
+    return new SqsPublisherConfig();
+  }
+
+  /**
+   * How long a batch that isn't full waits for more messages before it is sent. Defaults to 10
+   * milliseconds.
+   */
+  public SqsPublisherConfig linger(Duration linger) {
+    this.linger = linger;
+    return this;
+  }
+
+  /** Maximum number of batches being sent at the same time. Defaults to 4. */
+  public SqsPublisherConfig maxConcurrency(int maxConcurrency) {
+    if (maxConcurrency < 0) {
+      throw new SqsListenerException("Invalid value for maxConcurrency! It can't be negative");
+    }
+    this.maxConcurrency = maxConcurrency;
+    return this;
+  }
+
+  /**
+   * Maximum number of messages published but not yet sent, beyond which {@link
+   * SqsPublisher#publish(String)} blocks. Defaults to 1000.
+   */
+  public SqsPublisherConfig maxPendingMessages(int maxPendingMessages) {
+    if (maxPendingMessages < 0) {
+      throw new SqsListenerException("Invalid value for maxPendingMessages! It can't be negative");
+    }
+    this.maxPendingMessages = maxPendingMessages;
+    return this;
+  }
+
+  /** How often entries that failed for a reason other than the request itself are retried. */
+  public SqsPublisherConfig maxRetries(int maxRetries) {
+    if (maxRetries < 0) {
+      throw new SqsListenerException("Invalid value for maxRetries! It can't be negative");
+    }
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  public SqsPublisherConfig sqsClient(SqsAsyncClient sqsAsyncClient) {
+    this.sqsAsyncClient = sqsAsyncClient;
+    return this;
+  }
+
+  public SqsPublisherConfig build() {
+    return new SqsPublisherConfig(this);
+  }
+}
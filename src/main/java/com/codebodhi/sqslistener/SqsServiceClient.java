@@ -1,17 +1,53 @@
 package com.codebodhi.sqslistener;
 
 import java.time.Duration;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 
 interface SqsServiceClient {
+  static SqsServiceClient create(SqsAsyncClient sqsAsyncClient) {
+    final String sqsApiImplClass = SqsListener.DefaultConfig.INSTANCE.sqsApiImplClass;
+    try {
+      return sqsAsyncClient != null
+          ? (SqsServiceClient)
+              Class.forName(sqsApiImplClass)
+                  .getDeclaredConstructor(SqsAsyncClient.class)
+                  .newInstance(sqsAsyncClient)
+          : (SqsServiceClient)
+              Class.forName(sqsApiImplClass).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new SqsListenerException("Error creating " + sqsApiImplClass, e);
+    }
+  }
+
   String getQueueUrl(String queueName);
 
-  int getTotalNumberOfMessages(String queueName);
+  QueueBacklog getQueueBacklog(String queueName);
+
+  List<SqsMessage> receiveMessage(
+      String queueName,
+      Duration pollingFrequency,
+      int parallelization,
+      Duration visibilityTimeout,
+      Set<String> messageAttributeNames);
 
-  Set<SqsMessage> receiveMessage(
-      String queueName, Duration pollingFrequency, int parallelization, Duration visibilityTimeout);
+  /**
+   * Sends up to 10 messages in one batch, setting either the messageId or the error of each of
+   * them.
+   */
+  void sendMessages(String queueName, List<? extends SqsOutboundMessage> messages);
 
-  void deleteMessages(String queueName, Set<String> msgReceiptHandle);
+  /**
+   * Deletes up to 10 messages in one batch without waiting for it. The returned future completes
+   * with the indexes of the receipt handles that were deleted; failed entries are logged.
+   */
+  CompletableFuture<BitSet> deleteMessages(String queueName, List<String> msgReceiptHandles);
 
   void changeVisibilityTimeout(String queueName, String msgReceiptHandle, Duration duration);
+
+  void changeVisibilityTimeouts(
+      String queueName, List<String> msgReceiptHandles, Duration duration);
 }
@@ -1,19 +1,36 @@
 package com.codebodhi.sqslistener;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
 class SqsServiceClientSdk2 implements SqsServiceClient {
+  private static final Logger log = LoggerFactory.getLogger(SqsServiceClientSdk2.class);
+  // batch entry ids only need to be unique within a batch of at most 10 entries
+  private static final String[] BATCH_ENTRY_IDS = {
+    "0", "1", "2", "3", "4", "5", "6", "7", "8", "9"
+  };
+  private static final String APPROXIMATE_FIRST_RECEIVE_TIMESTAMP =
+      MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP.toString();
+  private static final String APPROXIMATE_RECEIVE_COUNT =
+      MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT.toString();
+  private static final String SENT_TIMESTAMP = MessageSystemAttributeName.SENT_TIMESTAMP.toString();
   private final SqsAsyncClient sqsClient;
+  private final Map<String, String> queueUrls = new ConcurrentHashMap<>();
 
   SqsServiceClientSdk2() {
     sqsClient =
@@ -28,86 +45,150 @@ class SqsServiceClientSdk2 implements SqsServiceClient {
 
   @Override
   public String getQueueUrl(String queueName) {
-    return waitFor(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build()))
-        .queueUrl();
+    // queue urls don't change, so they are resolved once instead of before every request
+    return queueUrls.computeIfAbsent(
+        queueName,
+        name ->
+            waitFor(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(name).build()))
+                .queueUrl());
   }
 
   @Override
-  public int getTotalNumberOfMessages(String queueName) {
+  public QueueBacklog getQueueBacklog(String queueName) {
     final Map<QueueAttributeName, String> attributes =
         waitFor(
                 sqsClient.getQueueAttributes(
                     GetQueueAttributesRequest.builder()
                         .queueUrl(getQueueUrl(queueName))
-                        .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES)
+                        .attributeNames(
+                            QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                            QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE,
+                            QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_DELAYED)
                         .build()))
             .attributes();
-    return Integer.parseInt(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES));
+    return new QueueBacklog(
+        Integer.parseInt(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES)),
+        Integer.parseInt(
+            attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)),
+        Integer.parseInt(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_DELAYED)),
+        System.currentTimeMillis());
   }
 
   @Override
-  public Set<SqsMessage> receiveMessage(
+  public List<SqsMessage> receiveMessage(
       String queueName,
       Duration pollingFrequency,
       int parallelization,
-      Duration visibilityTimeout) {
+      Duration visibilityTimeout,
+      Set<String> messageAttributeNames) {
     final int waitTimeout = (int) Math.min(pollingFrequency.getSeconds(), 20);
 
     final int maxNumberOfMessages = Math.min(parallelization, 10);
 
-    final ReceiveMessageResponse response =
-        waitFor(
-            sqsClient.receiveMessage(
-                ReceiveMessageRequest.builder()
-                    .queueUrl(getQueueUrl(queueName))
-                    .waitTimeSeconds(waitTimeout)
-                    .maxNumberOfMessages(maxNumberOfMessages)
-                    .visibilityTimeout((int) visibilityTimeout.getSeconds())
-                    .messageSystemAttributeNames(
-                        MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP,
-                        MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT)
-                    .build()));
+    final ReceiveMessageRequest.Builder request =
+        ReceiveMessageRequest.builder()
+            .queueUrl(getQueueUrl(queueName))
+            .waitTimeSeconds(waitTimeout)
+            .maxNumberOfMessages(maxNumberOfMessages)
+            .visibilityTimeout((int) visibilityTimeout.getSeconds())
+            .messageSystemAttributeNames(
+                MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP,
+                MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT,
+                MessageSystemAttributeName.SENT_TIMESTAMP);
+    if (!messageAttributeNames.isEmpty()) {
+      request.messageAttributeNames(messageAttributeNames);
+    }
+    final ReceiveMessageResponse response = waitFor(sqsClient.receiveMessage(request.build()));
 
-    return response.messages().stream()
-        .map(
-            message ->
-                new SqsMessage(
-                    message.messageId(),
-                    message.receiptHandle(),
-                    message.body(),
-                    Instant.ofEpochMilli(
-                        Long.parseLong(
-                            message
-                                .attributes()
-                                .get(
-                                    MessageSystemAttributeName
-                                        .APPROXIMATE_FIRST_RECEIVE_TIMESTAMP))),
-                    Integer.valueOf(
-                        message
-                            .attributes()
-                            .get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT))))
-        .collect(Collectors.toSet());
+    final long receivedAtMillis = System.currentTimeMillis();
+    final List<Message> received = response.messages();
+    final List<SqsMessage> messages = new ArrayList<>(received.size());
+    for (int i = 0; i < received.size(); i++) {
+      final Message message = received.get(i);
+      // the raw map, attributes() builds a new enum-keyed copy on every call
+      final Map<String, String> attributes = message.attributesAsStrings();
+      messages.add(
+          new SqsMessage(
+              queueName,
+              message.messageId(),
+              message.receiptHandle(),
+              message.body(),
+              parseTimestamp(attributes.get(APPROXIMATE_FIRST_RECEIVE_TIMESTAMP)),
+              Integer.parseInt(attributes.get(APPROXIMATE_RECEIVE_COUNT)),
+              toMessageAttributes(message.messageAttributes()),
+              parseTimestamp(attributes.get(SENT_TIMESTAMP)),
+              receivedAtMillis));
+    }
+    return messages;
   }
 
   @Override
-  public void deleteMessages(String queueName, Set<String> msgReceiptHandles) {
+  public void sendMessages(String queueName, List<? extends SqsOutboundMessage> messages) {
+    if (messages.size() > 10) {
+      throw new IllegalArgumentException("Send batch size can't be greater than 10");
+    }
+    final List<SendMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      final SqsOutboundMessage message = messages.get(i);
+      message.messageId = null;
+      message.errorCode = null;
+      message.errorMessage = null;
+      message.senderFault = false;
+      entries.add(
+          SendMessageBatchRequestEntry.builder()
+              .id(BATCH_ENTRY_IDS[i])
+              .messageBody(message.body)
+              .messageAttributes(toMessageAttributeValues(message.messageAttributes))
+              .build());
+    }
+    final SendMessageBatchResponse response =
+        waitFor(
+            sqsClient.sendMessageBatch(
+                builder -> builder.queueUrl(getQueueUrl(queueName)).entries(entries).build()));
+    for (SendMessageBatchResultEntry result : response.successful()) {
+      messages.get(Integer.parseInt(result.id())).messageId = result.messageId();
+    }
+    for (BatchResultErrorEntry error : response.failed()) {
+      final SqsOutboundMessage message = messages.get(Integer.parseInt(error.id()));
+      message.errorCode = error.code();
+      message.errorMessage = error.message();
+      message.senderFault = Boolean.TRUE.equals(error.senderFault());
+    }
+  }
+
+  @Override
+  public CompletableFuture<BitSet> deleteMessages(
+      String queueName, List<String> msgReceiptHandles) {
     if (msgReceiptHandles.size() > 10) {
       throw new IllegalArgumentException("Delete batch size can't be greater than 10");
     }
-    sqsClient.deleteMessageBatch(
-        builder ->
-            builder
-                .queueUrl(getQueueUrl(queueName))
-                .entries(
-                    msgReceiptHandles.stream()
-                        .map(
-                            receiptHandle ->
-                                DeleteMessageBatchRequestEntry.builder()
-                                    .receiptHandle(receiptHandle)
-                                    .id(UUID.randomUUID().toString())
-                                    .build())
-                        .collect(Collectors.toSet()))
-                .build());
+    final List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(msgReceiptHandles.size());
+    for (int i = 0; i < msgReceiptHandles.size(); i++) {
+      entries.add(
+          DeleteMessageBatchRequestEntry.builder()
+              .receiptHandle(msgReceiptHandles.get(i))
+              .id(BATCH_ENTRY_IDS[i])
+              .build());
+    }
+    return sqsClient
+        .deleteMessageBatch(
+            builder -> builder.queueUrl(getQueueUrl(queueName)).entries(entries).build())
+        .thenApply(
+            response -> {
+              final BitSet deleted = new BitSet(entries.size());
+              for (DeleteMessageBatchResultEntry result : response.successful()) {
+                deleted.set(Integer.parseInt(result.id()));
+              }
+              for (BatchResultErrorEntry error : response.failed()) {
+                log.warn(
+                    "Error deleting message with receipt handle {} from queue {}: {} {}",
+                    msgReceiptHandles.get(Integer.parseInt(error.id())),
+                    queueName,
+                    error.code(),
+                    error.message());
+              }
+              return deleted;
+            });
   }
 
   @Override
@@ -121,6 +202,69 @@ class SqsServiceClientSdk2 implements SqsServiceClient {
             .build());
   }
 
+  @Override
+  public void changeVisibilityTimeouts(
+      String queueName, List<String> msgReceiptHandles, Duration duration) {
+    if (msgReceiptHandles.size() > 10) {
+      throw new IllegalArgumentException("Change visibility batch size can't be greater than 10");
+    }
+    final List<ChangeMessageVisibilityBatchRequestEntry> entries =
+        new ArrayList<>(msgReceiptHandles.size());
+    for (int i = 0; i < msgReceiptHandles.size(); i++) {
+      entries.add(
+          ChangeMessageVisibilityBatchRequestEntry.builder()
+              .receiptHandle(msgReceiptHandles.get(i))
+              .id(BATCH_ENTRY_IDS[i])
+              .visibilityTimeout((int) duration.getSeconds())
+              .build());
+    }
+    sqsClient.changeMessageVisibilityBatch(
+        builder -> builder.queueUrl(getQueueUrl(queueName)).entries(entries).build());
+  }
+
+  private static Map<String, SqsMessageAttribute> toMessageAttributes(
+      Map<String, MessageAttributeValue> messageAttributes) {
+    if (messageAttributes.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    final Map<String, SqsMessageAttribute> attributes = new HashMap<>(messageAttributes.size() * 2);
+    messageAttributes.forEach(
+        (name, value) ->
+            attributes.put(
+                name,
+                new SqsMessageAttribute(
+                    value.dataType(),
+                    value.stringValue(),
+                    (value.binaryValue() == null) ? null : value.binaryValue().asByteArray())));
+    return attributes;
+  }
+
+  private static Map<String, MessageAttributeValue> toMessageAttributeValues(
+      Map<String, SqsMessageAttribute> attributes) {
+    if (attributes.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    final Map<String, MessageAttributeValue> messageAttributes =
+        new HashMap<>(attributes.size() * 2);
+    attributes.forEach(
+        (name, value) ->
+            messageAttributes.put(
+                name,
+                MessageAttributeValue.builder()
+                    .dataType(value.dataType)
+                    .stringValue(value.stringValue)
+                    .binaryValue(
+                        (value.binaryValue == null)
+                            ? null
+                            : SdkBytes.fromByteArrayUnsafe(value.binaryValue))
+                    .build()));
+    return messageAttributes;
+  }
+
+  private static long parseTimestamp(String timestamp) {
+    return timestamp == null ? 0L : Long.parseLong(timestamp);
+  }
+
   private static <T> T waitFor(CompletableFuture<T> future) {
     try {
       return future.get();
@@ -0,0 +1,113 @@
+package com.codebodhi.sqslistener.opentelemetry;
+
+import com.codebodhi.sqslistener.SqsListenerInterceptor;
+import com.codebodhi.sqslistener.SqsMessageContext;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continues the trace of the producer, propagated through message attributes (e.g. {@code
+ * traceparent}), with a consumer span around each {@code process()} call. The span is current while
+ * the message is processed, so spans created by the handler become its children.
+ *
+ * <p>Requires {@code io.opentelemetry:opentelemetry-api} on the classpath, which is an optional
+ * dependency of this library.
+ */
+public class OpenTelemetryInterceptor implements SqsListenerInterceptor {
+  static final String INSTRUMENTATION_NAME = "com.codebodhi.sqslistener";
+
+  private static final TextMapGetter<SqsMessageContext> GETTER =
+      new TextMapGetter<SqsMessageContext>() {
+        @Override
+        public Iterable<String> keys(SqsMessageContext message) {
+          return message.getMessageAttributes().keySet();
+        }
+
+        @Override
+        public String get(SqsMessageContext message, String key) {
+          return message == null ? null : message.getMessageAttributes().get(key);
+        }
+      };
+
+  private final Tracer tracer;
+  private final TextMapPropagator propagator;
+  private final Set<String> messageAttributeNames;
+  private final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+  private final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+
+  public OpenTelemetryInterceptor(OpenTelemetry openTelemetry) {
+    this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+    this.messageAttributeNames = new HashSet<>(propagator.fields());
+  }
+
+  @Override
+  public Set<String> messageAttributeNames() {
+    return messageAttributeNames;
+  }
+
+  @Override
+  public void beforeProcess(SqsMessageContext message) {
+    final Context parent = propagator.extract(Context.root(), message, GETTER);
+    final Span span =
+        tracer
+            .spanBuilder(message.getQueueName() + " process")
+            .setParent(parent)
+            .setSpanKind(SpanKind.CONSUMER)
+            .setStartTimestamp(message.getDispatchedTimestamp(), TimeUnit.MILLISECONDS)
+            .setAttribute("messaging.system", "aws_sqs")
+            .setAttribute("messaging.operation", "process")
+            .setAttribute("messaging.destination.name", message.getQueueName())
+            .setAttribute("messaging.message.id", message.getMessageId())
+            .setAttribute("messaging.sqs.receive_count", message.getReceivedCount())
+            .setAttribute(
+                "messaging.sqs.local_wait_ms",
+                message.getDispatchedTimestamp() - message.getReceivedTimestamp())
+            .startSpan();
+    if (message.getSentTimestamp() > 0) {
+      span.setAttribute(
+          "messaging.sqs.queue_wait_ms",
+          message.getReceivedTimestamp() - message.getSentTimestamp());
+    }
+    currentSpan.set(span);
+    currentScope.set(span.makeCurrent());
+  }
+
+  @Override
+  public void afterProcess(SqsMessageContext message) {
+    end(message, null);
+  }
+
+  @Override
+  public void onError(SqsMessageContext message, Exception e) {
+    end(message, e);
+  }
+
+  private void end(SqsMessageContext message, Exception e) {
+    final Span span = currentSpan.get();
+    final Scope scope = currentScope.get();
+    currentSpan.remove();
+    currentScope.remove();
+    if (scope != null) {
+      scope.close();
+    }
+    if (span == null) {
+      return;
+    }
+    if (e != null) {
+      span.recordException(e);
+      span.setStatus(StatusCode.ERROR);
+    }
+    span.end(message.getProcessedTimestamp(), TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,63 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  @Test
+  void shouldOpenWhenFailureRateReachesThreshold() {
+    CircuitBreaker circuitBreaker =
+        new CircuitBreaker("test-queue", 0.5, Duration.ofMinutes(1), 10);
+    for (int i = 0; i < CircuitBreaker.WINDOW_SIZE / 2; i++) {
+      circuitBreaker.onSuccess();
+    }
+    for (int i = 0; i < CircuitBreaker.WINDOW_SIZE / 2 - 1; i++) {
+      circuitBreaker.onFailure();
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertEquals(10, circuitBreaker.acquire(10));
+
+    circuitBreaker.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertTrue(circuitBreaker.isOpen());
+    assertEquals(0, circuitBreaker.acquire(10));
+  }
+
+  @Test
+  void shouldResumeGraduallyAfterOpenDuration() {
+    CircuitBreaker circuitBreaker = openCircuitBreaker(4);
+
+    assertEquals(1, circuitBreaker.acquire(10));
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    circuitBreaker.onSuccess();
+
+    assertEquals(2, circuitBreaker.acquire(10));
+    circuitBreaker.onSuccess();
+    circuitBreaker.onSuccess();
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertEquals(10, circuitBreaker.acquire(10));
+  }
+
+  @Test
+  void shouldReopenOnFailureWhileResuming() {
+    CircuitBreaker circuitBreaker = openCircuitBreaker(4);
+
+    assertEquals(1, circuitBreaker.acquire(10));
+    circuitBreaker.onFailure();
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+  }
+
+  private static CircuitBreaker openCircuitBreaker(int maxPermits) {
+    CircuitBreaker circuitBreaker = new CircuitBreaker("test-queue", 1, Duration.ZERO, maxPermits);
+    for (int i = 0; i < CircuitBreaker.WINDOW_SIZE; i++) {
+      circuitBreaker.onFailure();
+    }
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    return circuitBreaker;
+  }
+}
@@ -0,0 +1,78 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class InterceptorChainTest {
+
+  @Test
+  void shouldWrapLaterInterceptorsInEarlierOnes() {
+    List<String> calls = new ArrayList<>();
+    InterceptorChain chain =
+        new InterceptorChain(
+            Arrays.asList(recording("outer", calls), failing(), recording("inner", calls)));
+    SqsMessage message =
+        new SqsMessage(
+            "test-queue", "msg1", "handle-msg1", "body", 0L, 1, Collections.emptyMap(), 0L, 0L);
+
+    chain.beforeProcess(message);
+    chain.afterProcess(message);
+    chain.onError(message, new IllegalStateException());
+    chain.afterDelete(message);
+
+    assertEquals(
+        Arrays.asList(
+            "outer.before",
+            "inner.before",
+            "inner.after",
+            "outer.after",
+            "inner.error",
+            "outer.error",
+            "inner.delete",
+            "outer.delete"),
+        calls);
+  }
+
+  private static SqsListenerInterceptor recording(String name, List<String> calls) {
+    return new SqsListenerInterceptor() {
+      @Override
+      public void beforeProcess(SqsMessageContext message) {
+        calls.add(name + ".before");
+      }
+
+      @Override
+      public void afterProcess(SqsMessageContext message) {
+        calls.add(name + ".after");
+      }
+
+      @Override
+      public void onError(SqsMessageContext message, Exception e) {
+        calls.add(name + ".error");
+      }
+
+      @Override
+      public void afterDelete(SqsMessageContext message) {
+        calls.add(name + ".delete");
+      }
+    };
+  }
+
+  private static SqsListenerInterceptor failing() {
+    return new SqsListenerInterceptor() {
+      @Override
+      public void beforeProcess(SqsMessageContext message) {
+        throw new IllegalStateException("Error in interceptor");
+      }
+
+      @Override
+      public void afterProcess(SqsMessageContext message) {
+        throw new IllegalStateException("Error in interceptor");
+      }
+    };
+  }
+}
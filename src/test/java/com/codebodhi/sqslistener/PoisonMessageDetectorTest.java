@@ -0,0 +1,93 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class PoisonMessageDetectorTest {
+
+  @Test
+  void shouldDetectPoisonMessageAtMaxReceiveCount() {
+    PoisonMessageDetector detector = new PoisonMessageDetector(3);
+    assertFalse(detector.isPoison(message("msg1", 2), 1));
+    assertTrue(detector.isPoison(message("msg1", 3), 2));
+  }
+
+  @Test
+  void shouldDetectRepeatedIdenticalFailureEarlyWhileOtherMessagesSucceed() {
+    PoisonMessageDetector detector = new PoisonMessageDetector(5);
+    assertFalse(detector.isPoison(message("msg1", 1), 1));
+    succeed(detector, PoisonMessageDetector.HEALTHY_SUCCESSES);
+    assertTrue(detector.isPoison(message("msg1", 2), 1));
+  }
+
+  @Test
+  void shouldNotDetectRepeatedIdenticalFailureEarlyWhileNothingSucceeds() {
+    PoisonMessageDetector detector = new PoisonMessageDetector(10);
+    succeed(detector, PoisonMessageDetector.HEALTHY_SUCCESSES);
+    assertFalse(detector.isPoison(message("msg1", 1), 1));
+    succeed(detector, PoisonMessageDetector.HEALTHY_SUCCESSES - 1);
+    for (int receivedCount = 2; receivedCount < 10; receivedCount++) {
+      assertFalse(detector.isPoison(message("msg1", receivedCount), 1));
+    }
+    assertTrue(detector.isPoison(message("msg1", 10), 1));
+  }
+
+  @Test
+  void shouldNotDetectDifferentFailuresEarly() {
+    PoisonMessageDetector detector = new PoisonMessageDetector(5);
+    assertFalse(detector.isPoison(message("msg1", 1), 1));
+    succeed(detector, PoisonMessageDetector.HEALTHY_SUCCESSES);
+    assertFalse(detector.isPoison(message("msg1", 2), 2));
+  }
+
+  @Test
+  void shouldNotDetectSystemicFailuresEarly() {
+    PoisonMessageDetector detector = new PoisonMessageDetector(5);
+    for (int i = 0; i < PoisonMessageDetector.SYSTEMIC_FAILURES; i++) {
+      assertFalse(detector.isPoison(message("msg" + i, 1), 1));
+    }
+    succeed(detector, PoisonMessageDetector.HEALTHY_SUCCESSES);
+    assertFalse(detector.isPoison(message("msg0", 2), 1));
+
+    detector.forget("msg1");
+    detector.forget("msg2");
+    assertTrue(detector.isPoison(message("msg0", 3), 1));
+  }
+
+  @Test
+  void shouldFingerprintByExceptionTypeAndOrigin() {
+    assertEquals(
+        PoisonMessageDetector.fingerprint(fail("a")), PoisonMessageDetector.fingerprint(fail("b")));
+    assertEquals(
+        PoisonMessageDetector.fingerprint(new RuntimeException(fail("a"))),
+        PoisonMessageDetector.fingerprint(fail("a")));
+    assertNotEquals(
+        PoisonMessageDetector.fingerprint(fail("a")),
+        PoisonMessageDetector.fingerprint(new IllegalArgumentException("a")));
+  }
+
+  private static void succeed(PoisonMessageDetector detector, int messages) {
+    for (int i = 0; i < messages; i++) {
+      detector.onSuccess(message("ok" + i, 1));
+    }
+  }
+
+  private static IllegalStateException fail(String message) {
+    return new IllegalStateException(message);
+  }
+
+  private static SqsMessage message(String messageId, int receivedCount) {
+    return new SqsMessage(
+        "test-queue",
+        messageId,
+        "handle-" + messageId,
+        "body",
+        0L,
+        receivedCount,
+        Collections.emptyMap(),
+        0L,
+        0L);
+  }
+}
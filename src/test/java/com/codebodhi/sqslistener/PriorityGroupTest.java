@@ -0,0 +1,85 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PriorityGroupTest {
+
+  @Test
+  void shouldGrantFreedWorkerToHighestPriorityInStrictMode() throws InterruptedException {
+    PriorityGroup group = new PriorityGroup(2, 1, null);
+    group.acquire(0);
+    List<Integer> granted = Collections.synchronizedList(new ArrayList<>());
+    Thread low = waiter(group, 1, granted);
+    Thread high = waiter(group, 0, granted);
+
+    group.release();
+    high.join(1000);
+    low.join(1000);
+    assertEquals(Arrays.asList(0, 1), granted);
+  }
+
+  @Test
+  void shouldShareWorkersByWeightInWeightedMode() throws InterruptedException {
+    PriorityGroup group = new PriorityGroup(2, 1, new int[] {3, 1});
+    group.acquire(0);
+    List<Integer> granted = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> waiters = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      waiters.add(waiter(group, 0, granted));
+      waiters.add(waiter(group, 1, granted));
+    }
+
+    group.release();
+    for (Thread waiter : waiters) {
+      waiter.join(1000);
+    }
+    assertEquals(Arrays.asList(0, 0, 1, 0), granted.subList(0, 4));
+  }
+
+  @Test
+  void shouldLimitLowerPriorityReceivesWhileHigherPriorityHasBacklog() {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.getQueueBacklog("high"))
+        .thenReturn(new QueueBacklog(5, 0, 0, 0L), new QueueBacklog(0, 0, 0, 0L));
+    QueueBacklogSampler sampler = new QueueBacklogSampler("high", sqsServiceClient);
+
+    PriorityGroup strict = new PriorityGroup(2, 4, null);
+    strict.register(0, sampler);
+    assertEquals(4, strict.receiveLimit(1, 10));
+    strict.acquire(0);
+    strict.acquire(0);
+    assertEquals(2, strict.receiveLimit(1, 10));
+    assertEquals(10, strict.receiveLimit(0, 10));
+
+    PriorityGroup weighted = new PriorityGroup(2, 4, new int[] {3, 1});
+    weighted.register(0, sampler);
+    assertEquals(1, weighted.receiveLimit(1, 10));
+
+    sampler.sample();
+    assertEquals(10, weighted.receiveLimit(1, 10));
+  }
+
+  /** Starts a thread that takes a worker of {@code priority} and hands it on right away. */
+  private static Thread waiter(PriorityGroup group, int priority, List<Integer> granted)
+      throws InterruptedException {
+    Thread thread =
+        new Thread(
+            () -> {
+              group.acquire(priority);
+              granted.add(priority);
+              group.release();
+            });
+    thread.start();
+    while (thread.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    return thread;
+  }
+}
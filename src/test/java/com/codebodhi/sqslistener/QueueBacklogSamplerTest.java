@@ -0,0 +1,127 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+class QueueBacklogSamplerTest {
+
+  @Test
+  void shouldCacheBacklogUntilNextSample() {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.getQueueBacklog("test-queue"))
+        .thenReturn(new QueueBacklog(10, 2, 1, 0L), new QueueBacklog(5, 2, 0, 0L));
+    QueueBacklogSampler sampler = new QueueBacklogSampler("test-queue", sqsServiceClient);
+
+    assertEquals(10, sampler.getBacklog().getVisible());
+    assertEquals(10, sampler.getBacklog().getVisible());
+    verify(sqsServiceClient, times(1)).getQueueBacklog("test-queue");
+
+    sampler.sample();
+    assertEquals(5, sampler.getBacklog().getVisible());
+  }
+
+  @Test
+  void shouldMeasureThroughputOnlyWhileThereIsABacklog() throws InterruptedException {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.getQueueBacklog("test-queue"))
+        .thenReturn(
+            new QueueBacklog(0, 0, 0, 0L),
+            new QueueBacklog(10, 0, 0, 0L),
+            new QueueBacklog(0, 0, 0, 0L));
+    QueueBacklogSampler sampler = new QueueBacklogSampler("test-queue", sqsServiceClient);
+
+    sampler.sample();
+    sampler.recordProcessed();
+    Thread.sleep(10);
+    sampler.sample();
+    assertEquals(0, sampler.getThroughput());
+
+    for (int i = 0; i < 10; i++) {
+      sampler.recordProcessed();
+    }
+    Thread.sleep(10);
+    sampler.sample();
+    assertTrue(sampler.getThroughput() > 0);
+  }
+
+  @Test
+  void shouldShareFirstSamplerOfQueueAndClient() {
+    SqsAsyncClient sqsAsyncClient = mock(SqsAsyncClient.class);
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    QueueBacklogSampler sampler =
+        QueueBacklogSampler.forQueue(
+            sqsAsyncClient, "shared-queue", sqsServiceClient, Duration.ofMinutes(10));
+
+    assertSame(
+        sampler,
+        QueueBacklogSampler.forQueue(
+            sqsAsyncClient, "shared-queue", mock(SqsServiceClient.class), Duration.ofMinutes(5)));
+    QueueBacklogSampler otherClientSampler =
+        QueueBacklogSampler.forQueue(
+            mock(SqsAsyncClient.class), "shared-queue", sqsServiceClient, Duration.ofMinutes(10));
+    assertNotSame(sampler, otherClientSampler);
+
+    sampler.release();
+    sampler.release();
+    otherClientSampler.release();
+  }
+
+  @Test
+  void shouldStopSamplingWhenLastListenerReleasesIt() throws InterruptedException {
+    SqsAsyncClient sqsAsyncClient = mock(SqsAsyncClient.class);
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.getQueueBacklog("released-queue"))
+        .thenReturn(new QueueBacklog(10, 0, 0, 0L));
+    QueueBacklogSampler sampler =
+        QueueBacklogSampler.forQueue(
+            sqsAsyncClient, "released-queue", sqsServiceClient, Duration.ofMillis(50));
+    assertSame(
+        sampler,
+        QueueBacklogSampler.forQueue(
+            sqsAsyncClient, "released-queue", sqsServiceClient, Duration.ofMillis(50)));
+
+    sampler.release();
+    sampler.getBacklog();
+    verify(sqsServiceClient, timeout(5000).atLeast(2)).getQueueBacklog("released-queue");
+
+    sampler.release();
+    Thread.sleep(100);
+    clearInvocations(sqsServiceClient);
+    Thread.sleep(300);
+    verify(sqsServiceClient, never()).getQueueBacklog("released-queue");
+    assertNotSame(
+        sampler,
+        QueueBacklogSampler.forQueue(
+            sqsAsyncClient, "released-queue", sqsServiceClient, Duration.ofMillis(50)));
+  }
+
+  @Test
+  void shouldSkipIntervalsInWhichNoListenerAskedForTheBacklog() throws InterruptedException {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.getQueueBacklog("idle-queue"))
+        .thenReturn(
+            new QueueBacklog(10, 0, 0, 0L),
+            new QueueBacklog(5, 0, 0, 0L),
+            new QueueBacklog(3, 0, 0, 0L));
+    QueueBacklogSampler sampler =
+        QueueBacklogSampler.forQueue(
+            mock(SqsAsyncClient.class), "idle-queue", sqsServiceClient, Duration.ofMillis(50));
+    try {
+      assertEquals(10, sampler.getBacklog().getVisible());
+      verify(sqsServiceClient, timeout(5000).times(2)).getQueueBacklog("idle-queue");
+
+      // e.g. while the listener's circuit breaker is open
+      Thread.sleep(300);
+      verify(sqsServiceClient, times(2)).getQueueBacklog("idle-queue");
+
+      // the stale backlog was discarded
+      assertEquals(3, sampler.getBacklog().getVisible());
+    } finally {
+      sampler.release();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+  @Test
+  void shouldAllowBurstOfOneSecondWorthOfPermits() {
+    RateLimiter rateLimiter = new RateLimiter(5);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(rateLimiter.tryAcquire());
+    }
+    assertFalse(rateLimiter.tryAcquire());
+  }
+
+  @Test
+  void shouldAcquireUpToAvailablePermits() {
+    RateLimiter rateLimiter = new RateLimiter(3);
+    assertEquals(3, rateLimiter.acquireUpTo(10));
+    rateLimiter.release(2);
+    assertEquals(2, rateLimiter.acquireUpTo(10));
+  }
+
+  @Test
+  void shouldCapStoredPermitsWhenRateIsLowered() {
+    RateLimiter rateLimiter = new RateLimiter(10);
+    rateLimiter.setPermitsPerSecond(2);
+    assertEquals(2, rateLimiter.getPermitsPerSecond());
+    assertEquals(2, rateLimiter.acquireUpTo(10));
+    assertFalse(rateLimiter.tryAcquire());
+  }
+
+  @Test
+  void shouldBlockUntilPermitIsRefilled() {
+    RateLimiter rateLimiter = new RateLimiter(10);
+    rateLimiter.acquireUpTo(10);
+    long start = System.nanoTime();
+    rateLimiter.acquire();
+    assertTrue(System.nanoTime() - start >= 50_000_000L);
+  }
+
+  @Test
+  void shouldRejectNonPositiveRate() {
+    assertThrows(SqsListenerException.class, () -> new RateLimiter(0));
+  }
+}
@@ -0,0 +1,208 @@
+package com.codebodhi.sqslistener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.*;
+
+/**
+ * Compares the allocations of receiving and deleting a full batch of 10 messages against the
+ * previous Set/stream based implementation, kept here as {@link #legacyReceiveAndDelete}. Compare
+ * the {@code gc.alloc.rate.norm} (bytes per operation) of both benchmarks.
+ *
+ * <p>Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.codebodhi.sqslistener.ReceivePathBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReceivePathBenchmark {
+  static final String QUEUE_NAME = "test-queue";
+  static final Duration POLLING_FREQUENCY = Duration.ofSeconds(20);
+  static final Duration VISIBILITY_TIMEOUT = Duration.ofSeconds(30);
+
+  StubSqsAsyncClient sqsClient;
+  SqsServiceClientSdk2 sqsServiceClient;
+
+  @Setup
+  public void setup() {
+    final List<Message> messages = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final Map<MessageSystemAttributeName, String> attributes = new HashMap<>();
+      attributes.put(
+          MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP,
+          String.valueOf(System.currentTimeMillis()));
+      attributes.put(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, "1");
+      attributes.put(
+          MessageSystemAttributeName.SENT_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+      messages.add(
+          Message.builder()
+              .messageId(UUID.randomUUID().toString())
+              .receiptHandle(UUID.randomUUID().toString())
+              .body("{\"id\": " + i + "}")
+              .attributes(attributes)
+              .build());
+    }
+    sqsClient = new StubSqsAsyncClient(ReceiveMessageResponse.builder().messages(messages).build());
+    sqsServiceClient = new SqsServiceClientSdk2(sqsClient);
+  }
+
+  @Benchmark
+  public void receiveAndDelete(Blackhole blackhole) {
+    final List<SqsMessage> messages =
+        sqsServiceClient.receiveMessage(
+            QUEUE_NAME, POLLING_FREQUENCY, 10, VISIBILITY_TIMEOUT, Collections.emptySet());
+    final List<String> receiptHandles = new ArrayList<>(messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      receiptHandles.add(messages.get(i).receiptHandle);
+    }
+    sqsServiceClient.deleteMessages(QUEUE_NAME, receiptHandles);
+    blackhole.consume(messages);
+  }
+
+  @Benchmark
+  public void legacyReceiveAndDelete(Blackhole blackhole) {
+    final String queueUrl =
+        sqsClient
+            .getQueueUrl(GetQueueUrlRequest.builder().queueName(QUEUE_NAME).build())
+            .join()
+            .queueUrl();
+    final ReceiveMessageResponse response =
+        sqsClient
+            .receiveMessage(
+                ReceiveMessageRequest.builder()
+                    .queueUrl(queueUrl)
+                    .waitTimeSeconds(20)
+                    .maxNumberOfMessages(10)
+                    .visibilityTimeout(30)
+                    .messageSystemAttributeNames(
+                        MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP,
+                        MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT)
+                    .build())
+            .join();
+    final Set<LegacySqsMessage> messages =
+        response.messages().stream()
+            .map(
+                message ->
+                    new LegacySqsMessage(
+                        message.messageId(),
+                        message.receiptHandle(),
+                        message.body(),
+                        Instant.ofEpochMilli(
+                            Long.parseLong(
+                                message
+                                    .attributes()
+                                    .get(
+                                        MessageSystemAttributeName
+                                            .APPROXIMATE_FIRST_RECEIVE_TIMESTAMP))),
+                        Integer.valueOf(
+                            message
+                                .attributes()
+                                .get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT))))
+            .collect(Collectors.toSet());
+    final Set<String> toBeDeleted = new HashSet<>(10);
+    messages.forEach(message -> toBeDeleted.add(message.receiptHandle));
+    final Set<String> receiptHandles = new HashSet<>(toBeDeleted);
+    final String deleteQueueUrl =
+        sqsClient
+            .getQueueUrl(GetQueueUrlRequest.builder().queueName(QUEUE_NAME).build())
+            .join()
+            .queueUrl();
+    sqsClient.deleteMessageBatch(
+        builder ->
+            builder
+                .queueUrl(deleteQueueUrl)
+                .entries(
+                    receiptHandles.stream()
+                        .map(
+                            receiptHandle ->
+                                DeleteMessageBatchRequestEntry.builder()
+                                    .receiptHandle(receiptHandle)
+                                    .id(UUID.randomUUID().toString())
+                                    .build())
+                        .collect(Collectors.toSet()))
+                .build());
+    blackhole.consume(messages);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(ReceivePathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+
+  static class LegacySqsMessage {
+    String messageId;
+    String receiptHandle;
+    String body;
+    Instant firstReceivedTimestamp;
+    Integer receivedCount;
+
+    LegacySqsMessage(
+        String messageId,
+        String receiptHandle,
+        String body,
+        Instant firstReceivedTimestamp,
+        Integer receivedCount) {
+      this.messageId = messageId;
+      this.receiptHandle = receiptHandle;
+      this.body = body;
+      this.firstReceivedTimestamp = firstReceivedTimestamp;
+      this.receivedCount = receivedCount;
+    }
+  }
+
+  /** Answers from memory and builds delete requests like the SDK would, without any I/O. */
+  static class StubSqsAsyncClient implements SqsAsyncClient {
+    private final CompletableFuture<ReceiveMessageResponse> receiveMessageResponse;
+
+    StubSqsAsyncClient(ReceiveMessageResponse receiveMessageResponse) {
+      this.receiveMessageResponse = CompletableFuture.completedFuture(receiveMessageResponse);
+    }
+
+    @Override
+    public CompletableFuture<GetQueueUrlResponse> getQueueUrl(GetQueueUrlRequest request) {
+      return CompletableFuture.completedFuture(
+          GetQueueUrlResponse.builder().queueUrl("dummy://" + request.queueName()).build());
+    }
+
+    @Override
+    public CompletableFuture<ReceiveMessageResponse> receiveMessage(ReceiveMessageRequest request) {
+      return receiveMessageResponse;
+    }
+
+    @Override
+    public CompletableFuture<DeleteMessageBatchResponse> deleteMessageBatch(
+        Consumer<DeleteMessageBatchRequest.Builder> request) {
+      final DeleteMessageBatchRequest.Builder builder = DeleteMessageBatchRequest.builder();
+      request.accept(builder);
+      builder.build();
+      return CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder().build());
+    }
+
+    @Override
+    public String serviceName() {
+      return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
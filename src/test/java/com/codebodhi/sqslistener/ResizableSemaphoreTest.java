@@ -0,0 +1,24 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ResizableSemaphoreTest {
+
+  @Test
+  void shouldGrowAndShrinkWhilePermitsAreHeld() {
+    ResizableSemaphore semaphore = new ResizableSemaphore(2);
+    assertTrue(semaphore.tryAcquire(2));
+
+    semaphore.setPermits(1);
+    semaphore.release();
+    assertFalse(semaphore.tryAcquire());
+    semaphore.release();
+    assertTrue(semaphore.tryAcquire());
+
+    semaphore.setPermits(3);
+    assertTrue(semaphore.tryAcquire(2));
+    assertEquals(3, semaphore.getPermits());
+  }
+}
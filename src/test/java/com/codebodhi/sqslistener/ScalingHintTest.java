@@ -0,0 +1,26 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ScalingHintTest {
+
+  @Test
+  void shouldComputeDesiredReplicasFromBacklogAndThroughput() {
+    Duration targetDrainTime = Duration.ofSeconds(60);
+    assertEquals(1, ScalingHint.desiredReplicas(0, 10, targetDrainTime));
+    assertEquals(1, ScalingHint.desiredReplicas(1000, 0, targetDrainTime));
+    assertEquals(1, ScalingHint.desiredReplicas(600, 10, targetDrainTime));
+    assertEquals(2, ScalingHint.desiredReplicas(601, 10, targetDrainTime));
+    assertEquals(10, ScalingHint.desiredReplicas(6000, 10, targetDrainTime));
+  }
+
+  @Test
+  void shouldCountVisibleAndDelayedMessagesAsBacklog() {
+    ScalingHint scalingHint =
+        new ScalingHint(new QueueBacklog(600, 1000, 600, 0L), 10, Duration.ofSeconds(60));
+    assertEquals(2, scalingHint.getDesiredReplicas());
+  }
+}
@@ -0,0 +1,52 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class SlowMessageDetectorTest {
+
+  @Test
+  void shouldCountMessagesOverThreshold() {
+    SlowMessageDetector detector = new SlowMessageDetector(Duration.ofSeconds(1), 2);
+
+    detector.afterDelete(message(100, 200, 300, 400, 500));
+    assertEquals(0, detector.getSlowMessageCount());
+
+    detector.afterDelete(message(100, 200, 300, 1400, 1500));
+    detector.onError(message(100, 200, 300, 1400, 0), new RuntimeException());
+    assertEquals(2, detector.getSlowMessageCount());
+  }
+
+  @Test
+  void shouldFallBackToReceivedTimestampWithoutSentTimestamp() {
+    SlowMessageDetector detector = new SlowMessageDetector(Duration.ofSeconds(1));
+
+    detector.afterDelete(message(0, 200, 300, 1100, 1150));
+    assertEquals(0, detector.getSlowMessageCount());
+
+    detector.afterDelete(message(0, 200, 300, 1100, 1250));
+    assertEquals(1, detector.getSlowMessageCount());
+  }
+
+  private static SqsMessage message(
+      long sent, long received, long dispatched, long processed, long deleted) {
+    SqsMessage message =
+        new SqsMessage(
+            "test-queue",
+            "msg1",
+            "handle1",
+            "msg1-body",
+            received,
+            1,
+            Collections.emptyMap(),
+            sent,
+            received);
+    message.dispatchedAtMillis = dispatched;
+    message.processedAtMillis = processed;
+    message.deletedAtMillis = deleted;
+    return message;
+  }
+}
@@ -0,0 +1,135 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class SqsDeadLetterRedriveTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldMoveMessagesBackWithoutFailureMetadata() {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    Map<String, SqsMessageAttribute> attributes = new HashMap<>();
+    attributes.put("thumbnail", new SqsMessageAttribute("Binary.png", null, new byte[] {1, 2}));
+    attributes.put(
+        SqsListener.FAILURE_CLASS_ATTRIBUTE,
+        SqsMessageAttribute.ofString("java.lang.IllegalStateException"));
+    when(sqsServiceClient.receiveMessage(eq("test-queue-error"), any(), anyInt(), any(), any()))
+        .thenReturn(
+            Arrays.asList(message("msg1", attributes), message("msg2", Collections.emptyMap())),
+            Collections.emptyList());
+    doAnswer(
+            invocation -> {
+              List<SqsOutboundMessage> batch = invocation.getArgument(1);
+              batch.get(0).messageId = "new-msg1";
+              batch.get(1).errorCode = "InternalError";
+              return null;
+            })
+        .when(sqsServiceClient)
+        .sendMessages(eq("test-queue"), anyList());
+
+    int redriven =
+        new SqsDeadLetterRedrive(sqsServiceClient).redrive("test-queue-error", "test-queue", 100);
+
+    assertEquals(1, redriven);
+    ArgumentCaptor<List<SqsOutboundMessage>> sent = ArgumentCaptor.forClass(List.class);
+    verify(sqsServiceClient).sendMessages(eq("test-queue"), sent.capture());
+    assertEquals(
+        Collections.singletonMap(
+            "thumbnail", new SqsMessageAttribute("Binary.png", null, new byte[] {1, 2})),
+        sent.getValue().get(0).messageAttributes);
+    verify(sqsServiceClient)
+        .deleteMessages("test-queue-error", Collections.singletonList("handle-msg1"));
+  }
+
+  @Test
+  void shouldStopAtMaxMessages() {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.receiveMessage(eq("test-queue-error"), any(), eq(1), any(), any()))
+        .thenReturn(Collections.singletonList(message("msg1", Collections.emptyMap())));
+    doAnswer(
+            invocation -> {
+              List<SqsOutboundMessage> batch = invocation.getArgument(1);
+              batch.forEach(message -> message.messageId = "new-" + message.body);
+              return null;
+            })
+        .when(sqsServiceClient)
+        .sendMessages(eq("test-queue"), anyList());
+
+    assertEquals(
+        1, new SqsDeadLetterRedrive(sqsServiceClient).redrive("test-queue-error", "test-queue", 1));
+    verify(sqsServiceClient, times(1)).receiveMessage(any(), any(), anyInt(), any(), any());
+  }
+
+  @Test
+  void shouldQuarantineWithAllAttributesAndFailureMetadata() {
+    Map<String, SqsMessageAttribute> attributes = new HashMap<>();
+    attributes.put("count", new SqsMessageAttribute("Number", "42", null));
+    SqsMessage message = message("msg1", attributes);
+    message.failure = new IllegalStateException("Error in client processing");
+    message.failureFingerprint = 0xcafe;
+
+    SqsOutboundMessage deadLetter = SqsListener.toDeadLetter("test-queue", message);
+
+    assertEquals(6, deadLetter.messageAttributes.size());
+    assertEquals(
+        new SqsMessageAttribute("Number", "42", null), deadLetter.messageAttributes.get("count"));
+    assertEquals(
+        "Error in client processing",
+        deadLetter.messageAttributes.get(SqsListener.FAILURE_MESSAGE_ATTRIBUTE).stringValue);
+    assertEquals(
+        "cafe",
+        deadLetter.messageAttributes.get(SqsListener.FAILURE_FINGERPRINT_ATTRIBUTE).stringValue);
+  }
+
+  @Test
+  void shouldNotDropAttributesOrExceedMessageSizeForFailureMetadata() {
+    Map<String, SqsMessageAttribute> attributes = new HashMap<>();
+    for (int i = 0; i < 8; i++) {
+      attributes.put("attribute" + i, SqsMessageAttribute.ofString("value" + i));
+    }
+    char[] body = new char[SqsOutboundMessage.MAX_MESSAGE_BYTES - 500];
+    Arrays.fill(body, 'x');
+    SqsMessage message =
+        new SqsMessage(
+            "test-queue", "msg1", "handle-msg1", new String(body), 0L, 3, attributes, 0L, 0L);
+    char[] failureMessage = new char[1000];
+    Arrays.fill(failureMessage, 'y');
+    message.failure = new IllegalStateException(new String(failureMessage));
+
+    SqsOutboundMessage deadLetter = SqsListener.toDeadLetter("test-queue", message);
+
+    assertEquals(10, deadLetter.messageAttributes.size());
+    assertTrue(deadLetter.messageAttributes.keySet().containsAll(attributes.keySet()));
+    assertTrue(deadLetter.messageAttributes.containsKey(SqsListener.SOURCE_QUEUE_ATTRIBUTE));
+    assertTrue(deadLetter.messageAttributes.containsKey(SqsListener.FAILURE_CLASS_ATTRIBUTE));
+    assertTrue(deadLetter.size() <= SqsOutboundMessage.MAX_MESSAGE_BYTES);
+
+    attributes.remove("attribute0");
+    attributes.remove("attribute1");
+    attributes.remove("attribute2");
+    deadLetter = SqsListener.toDeadLetter("test-queue", message);
+    String shortened =
+        deadLetter.messageAttributes.get(SqsListener.FAILURE_MESSAGE_ATTRIBUTE).stringValue;
+    assertTrue(shortened.length() > 0 && shortened.length() < 1000);
+    assertTrue(deadLetter.size() <= SqsOutboundMessage.MAX_MESSAGE_BYTES);
+  }
+
+  private static SqsMessage message(String messageId, Map<String, SqsMessageAttribute> attributes) {
+    return new SqsMessage(
+        "test-queue-error",
+        messageId,
+        "handle-" + messageId,
+        messageId + "-body",
+        0L,
+        1,
+        attributes,
+        0L,
+        0L);
+  }
+}
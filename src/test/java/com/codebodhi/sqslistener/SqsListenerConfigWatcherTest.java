@@ -0,0 +1,124 @@
+package com.codebodhi.sqslistener;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SqsListenerConfigWatcherTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void shouldApplyFileAndItsChanges() throws IOException {
+    Path file = directory.resolve("listener.properties");
+    write(file, "parallelism=2\nvisibility-timeout=60\nrate-limit=5");
+    List<SqsListenerConfig> applied = new CopyOnWriteArrayList<>();
+
+    try (SqsListenerConfigWatcher ignored = new SqsListenerConfigWatcher(file, applied::add)) {
+      assertEquals(1, applied.size());
+      assertEquals(2, applied.get(0).parallelism);
+      assertEquals(Duration.ofSeconds(60), applied.get(0).visibilityTimeout);
+      assertNull(applied.get(0).pollingFrequency);
+      RateLimiter rateLimiter = applied.get(0).rateLimiter;
+
+      write(file, "parallelism=4\nrate-limit=2");
+      // the file may also be seen half-written, i.e. empty
+      await()
+          .atMost(30, TimeUnit.SECONDS)
+          .until(() -> applied.get(applied.size() - 1).parallelism == 4);
+      assertSame(rateLimiter, applied.get(applied.size() - 1).rateLimiter);
+      assertEquals(2, rateLimiter.getPermitsPerSecond());
+    }
+  }
+
+  @Test
+  void shouldApplyConfigMapUpdateThatSwapsSymlink() throws IOException {
+    // the layout of a mounted ConfigMap: listener.properties -> ..data/listener.properties,
+    // ..data -> ..<timestamp>, updated by atomically renaming a new ..data_tmp symlink to ..data
+    Path version1 = Files.createDirectory(directory.resolve("..version1"));
+    write(version1.resolve("listener.properties"), "parallelism=2");
+    Files.createSymbolicLink(directory.resolve("..data"), version1.getFileName());
+    Path file = directory.resolve("listener.properties");
+    Files.createSymbolicLink(file, Paths.get("..data", "listener.properties"));
+    List<SqsListenerConfig> applied = new CopyOnWriteArrayList<>();
+
+    try (SqsListenerConfigWatcher ignored = new SqsListenerConfigWatcher(file, applied::add)) {
+      assertEquals(2, applied.get(0).parallelism);
+
+      Path version2 = Files.createDirectory(directory.resolve("..version2"));
+      write(version2.resolve("listener.properties"), "parallelism=4");
+      Path dataTmp =
+          Files.createSymbolicLink(directory.resolve("..data_tmp"), version2.getFileName());
+      Files.move(
+          dataTmp,
+          directory.resolve("..data"),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+
+      await()
+          .atMost(30, TimeUnit.SECONDS)
+          .until(() -> applied.get(applied.size() - 1).parallelism == 4);
+    }
+  }
+
+  @Test
+  void shouldSkipInvalidFile() throws IOException {
+    Path file = directory.resolve("listener.properties");
+    write(file, "parallelism=many");
+    List<SqsListenerConfig> applied = new CopyOnWriteArrayList<>();
+
+    try (SqsListenerConfigWatcher ignored = new SqsListenerConfigWatcher(file, applied::add)) {
+      assertTrue(applied.isEmpty());
+    }
+  }
+
+  @Test
+  void shouldNotChangeRateLimitOfRejectedFile() throws IOException {
+    Path file = directory.resolve("listener.properties");
+    write(file, "rate-limit=5");
+    List<SqsListenerConfig> received = new CopyOnWriteArrayList<>();
+    List<SqsListenerConfig> applied = new CopyOnWriteArrayList<>();
+    Consumer<SqsListenerConfig> target =
+        config -> {
+          received.add(config);
+          if (config.visibilityTimeout != null) {
+            throw new SqsListenerException("visibility-timeout is too short");
+          }
+          applied.add(config);
+        };
+
+    try (SqsListenerConfigWatcher ignored = new SqsListenerConfigWatcher(file, target)) {
+      RateLimiter rateLimiter = applied.get(0).rateLimiter;
+
+      write(file, "rate-limit=1\nvisibility-timeout=1");
+      await()
+          .atMost(30, TimeUnit.SECONDS)
+          .until(() -> received.get(received.size() - 1).visibilityTimeout != null);
+      assertEquals(5, rateLimiter.getPermitsPerSecond());
+
+      write(file, "rate-limit=2\nparallelism=3");
+      await()
+          .atMost(30, TimeUnit.SECONDS)
+          .until(() -> applied.get(applied.size() - 1).parallelism == 3);
+      assertSame(rateLimiter, applied.get(applied.size() - 1).rateLimiter);
+      assertEquals(2, rateLimiter.getPermitsPerSecond());
+    }
+  }
+
+  private static void write(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
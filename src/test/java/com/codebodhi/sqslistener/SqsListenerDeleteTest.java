@@ -0,0 +1,142 @@
+package com.codebodhi.sqslistener;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class SqsListenerDeleteTest {
+
+  @Test
+  void shouldRunAfterDeleteOnlyForConfirmedDeletes() throws InterruptedException {
+    String queueName = "delete-queue";
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.getQueueBacklog(queueName))
+        .thenReturn(new QueueBacklog(2, 0, 0, System.currentTimeMillis()));
+    when(sqsServiceClient.receiveMessage(eq(queueName), any(), anyInt(), any(), any()))
+        .thenReturn(Arrays.asList(message(queueName, "msg0"), message(queueName, "msg1")))
+        .thenReturn(Collections.emptyList());
+    Map<List<String>, CompletableFuture<BitSet>> deletes = new ConcurrentHashMap<>();
+    when(sqsServiceClient.deleteMessages(eq(queueName), anyList()))
+        .thenAnswer(
+            invocation -> {
+              CompletableFuture<BitSet> deleted = new CompletableFuture<>();
+              deletes.put(new ArrayList<>(invocation.getArgument(1)), deleted);
+              return deleted;
+            });
+    List<String> afterDelete = new CopyOnWriteArrayList<>();
+
+    new SqsListener(
+        queueName,
+        SqsListenerConfig.builder()
+            .parallelism(2)
+            .pollingFrequency(Duration.ofSeconds(1))
+            .interceptor(
+                new SqsListenerInterceptor() {
+                  @Override
+                  public void afterDelete(SqsMessageContext message) {
+                    afterDelete.add(message.getMessageId());
+                  }
+                })
+            .build(),
+        sqsServiceClient,
+        null,
+        0) {
+      @Override
+      public void process(String message) {}
+    };
+
+    await()
+        .atMost(10, TimeUnit.SECONDS)
+        .until(() -> deletes.keySet().stream().mapToInt(List::size).sum() == 2);
+    Thread.sleep(500);
+    assertTrue(afterDelete.isEmpty());
+
+    // SQS fails to delete msg0
+    deletes.forEach(
+        (receiptHandles, deleted) -> {
+          BitSet successful = new BitSet();
+          for (int i = 0; i < receiptHandles.size(); i++) {
+            if (receiptHandles.get(i).equals("handle-msg1")) {
+              successful.set(i);
+            }
+          }
+          deleted.complete(successful);
+        });
+    await().atMost(10, TimeUnit.SECONDS).until(() -> afterDelete.size() == 1);
+    Thread.sleep(500);
+    assertEquals(Collections.singletonList("msg1"), afterDelete);
+  }
+
+  @Test
+  void shouldDeleteProcessedMessagesAndStopSamplingOnClose() throws InterruptedException {
+    String queueName = "close-queue";
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.getQueueBacklog(queueName))
+        .thenReturn(new QueueBacklog(2, 0, 0, System.currentTimeMillis()));
+    when(sqsServiceClient.receiveMessage(eq(queueName), any(), anyInt(), any(), any()))
+        .thenReturn(Arrays.asList(message(queueName, "msg0"), message(queueName, "msg1")))
+        .thenReturn(Collections.emptyList());
+    CountDownLatch processing = new CountDownLatch(2);
+
+    SqsListener listener =
+        new SqsListener(
+            queueName,
+            SqsListenerConfig.builder()
+                .parallelism(2)
+                .pollingFrequency(Duration.ofSeconds(5))
+                .backlogSamplingInterval(Duration.ofMillis(50))
+                .build(),
+            sqsServiceClient,
+            null,
+            0) {
+          @Override
+          public void process(String message) throws InterruptedException {
+            processing.countDown();
+            Thread.sleep(500);
+          }
+        };
+    assertTrue(processing.await(10, TimeUnit.SECONDS));
+
+    listener.close();
+    verify(sqsServiceClient)
+        .deleteMessages(
+            eq(queueName),
+            argThat(
+                receiptHandles ->
+                    new HashSet<>(receiptHandles)
+                        .equals(new HashSet<>(Arrays.asList("handle-msg0", "handle-msg1")))));
+    clearInvocations(sqsServiceClient);
+    Thread.sleep(300);
+    verify(sqsServiceClient, never()).getQueueBacklog(queueName);
+    verify(sqsServiceClient, never()).receiveMessage(any(), any(), anyInt(), any(), any());
+  }
+
+  private static SqsMessage message(String queueName, String messageId) {
+    return new SqsMessage(
+        queueName,
+        messageId,
+        "handle-" + messageId,
+        "body",
+        0L,
+        1,
+        Collections.emptyMap(),
+        0L,
+        System.currentTimeMillis());
+  }
+}
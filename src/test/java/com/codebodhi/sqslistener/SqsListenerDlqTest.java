@@ -6,6 +6,7 @@ import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -109,4 +110,81 @@ class SqsListenerDlqTest {
                     .join()
                     .hasMessages());
   }
+
+  @Test
+  void shouldQuarantineToConfiguredDeadLetterQueueAndRedrive() {
+    final String quarantineQueueName = "test-quarantine-queue";
+    final String quarantineDeadLetterQueueName = "test-quarantine-queue-error";
+    final String quarantineQueueUrl =
+        sqsClient.createQueue(builder -> builder.queueName(quarantineQueueName)).join().queueUrl();
+    final String quarantineDeadLetterQueueUrl =
+        sqsClient
+            .createQueue(builder -> builder.queueName(quarantineDeadLetterQueueName))
+            .join()
+            .queueUrl();
+
+    sqsClient.sendMessage(
+        builder -> builder.queueUrl(quarantineQueueUrl).messageBody("lorem ipsum").build());
+    final AtomicBoolean failing = new AtomicBoolean(true);
+    new SqsListener(
+        quarantineQueueName,
+        SqsListenerConfig.builder()
+            .pollingFrequency(Duration.ofSeconds(1))
+            .visibilityTimeout(Duration.ofSeconds(1))
+            .deadLetterQueue(quarantineDeadLetterQueueName, 2)
+            .sqsClient(sqsClient)
+            .build()) {
+      @Override
+      public void process(String message) {
+        if (failing.get()) {
+          throw new IllegalStateException("Error in client processing");
+        }
+      }
+    };
+
+    await()
+        .atMost(1, TimeUnit.MINUTES)
+        .until(
+            () ->
+                sqsClient
+                    .receiveMessage(
+                        builder ->
+                            builder
+                                .queueUrl(quarantineDeadLetterQueueUrl)
+                                .waitTimeSeconds(1)
+                                .visibilityTimeout(0)
+                                .messageAttributeNames("All"))
+                    .join()
+                    .messages()
+                    .stream()
+                    .anyMatch(
+                        message ->
+                            IllegalStateException.class
+                                .getName()
+                                .equals(
+                                    message
+                                        .messageAttributes()
+                                        .get(SqsListener.FAILURE_CLASS_ATTRIBUTE)
+                                        .stringValue())));
+
+    failing.set(false);
+    Assertions.assertEquals(
+        1,
+        new SqsDeadLetterRedrive(sqsClient)
+            .redrive(quarantineDeadLetterQueueName, quarantineQueueName, 10));
+
+    await()
+        .atMost(1, TimeUnit.MINUTES)
+        .until(
+            () ->
+                !sqsClient
+                    .receiveMessage(
+                        builder ->
+                            builder
+                                .queueUrl(quarantineQueueUrl)
+                                .waitTimeSeconds(1)
+                                .visibilityTimeout(0))
+                    .join()
+                    .hasMessages());
+  }
 }
@@ -0,0 +1,181 @@
+package com.codebodhi.sqslistener;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SqsListenerReconfigureTest {
+  private static final AtomicInteger QUEUE_COUNT = new AtomicInteger();
+  private final AtomicBoolean stopped = new AtomicBoolean();
+  private final Semaphore gate = new Semaphore(0);
+  private final List<SqsListener> listeners = new ArrayList<>();
+
+  @AfterEach
+  void after() {
+    stopped.set(true);
+    gate.release(1000);
+    listeners.forEach(SqsListener::close);
+  }
+
+  @Test
+  void shouldResizeWorkersWhileMessagesAreInFlight() throws InterruptedException {
+    String queueName = queueName();
+    AtomicInteger running = new AtomicInteger();
+    SqsListener listener =
+        new SqsListener(
+            queueName,
+            SqsListenerConfig.builder()
+                .parallelism(1)
+                .pollingFrequency(Duration.ofSeconds(1))
+                .build(),
+            sqsServiceClient(queueName),
+            null,
+            0) {
+          @Override
+          public void process(String message) throws InterruptedException {
+            running.incrementAndGet();
+            gate.acquire();
+            running.decrementAndGet();
+          }
+        };
+    listeners.add(listener);
+    await().atMost(10, TimeUnit.SECONDS).until(() -> running.get() == 1);
+
+    listener.reconfigure(SqsListenerConfig.builder().parallelism(3).build());
+    await().atMost(10, TimeUnit.SECONDS).until(() -> running.get() == 3);
+
+    listener.reconfigure(SqsListenerConfig.builder().parallelism(1).build());
+    gate.release(3);
+    await().atMost(10, TimeUnit.SECONDS).until(() -> running.get() == 1);
+    Thread.sleep(1500);
+    assertEquals(1, running.get());
+  }
+
+  @Test
+  void shouldApplyVisibilityTimeoutAndBatchSizeToNextReceive() {
+    String queueName = queueName();
+    SqsServiceClient sqsServiceClient = sqsServiceClient(queueName);
+    SqsListener listener =
+        new SqsListener(
+            queueName,
+            SqsListenerConfig.builder()
+                .parallelism(5)
+                .pollingFrequency(Duration.ofSeconds(1))
+                .visibilityTimeout(Duration.ofSeconds(30))
+                .build(),
+            sqsServiceClient,
+            null,
+            0) {
+          @Override
+          public void process(String message) {}
+        };
+    listeners.add(listener);
+
+    listener.reconfigure(
+        SqsListenerConfig.builder()
+            .visibilityTimeout(Duration.ofSeconds(90))
+            .receiveBatchSize(2)
+            .build());
+
+    verify(sqsServiceClient, timeout(10_000).atLeastOnce())
+        .receiveMessage(
+            eq(queueName), any(), intThat(n -> n <= 2), eq(Duration.ofSeconds(90)), any());
+  }
+
+  @Test
+  void shouldKeepConfiguredMinRemainingVisibility() {
+    String queueName = queueName();
+    SqsListener listener =
+        new SqsListener(
+            queueName,
+            SqsListenerConfig.builder()
+                .visibilityTimeout(Duration.ofSeconds(60))
+                .minRemainingVisibility(Duration.ofSeconds(10))
+                .build(),
+            sqsServiceClient(queueName),
+            null,
+            0) {
+          @Override
+          public void process(String message) {}
+        };
+    listeners.add(listener);
+
+    assertThrows(
+        SqsListenerException.class,
+        () ->
+            listener.reconfigure(
+                SqsListenerConfig.builder().visibilityTimeout(Duration.ofSeconds(5)).build()));
+    listener.reconfigure(
+        SqsListenerConfig.builder()
+            .visibilityTimeout(Duration.ofSeconds(5))
+            .minRemainingVisibility(Duration.ofSeconds(1))
+            .build());
+  }
+
+  @Test
+  void shouldScaleDefaultMinRemainingVisibilityWithVisibilityTimeout() {
+    String queueName = queueName();
+    SqsListener listener =
+        new SqsListener(
+            queueName,
+            SqsListenerConfig.builder().visibilityTimeout(Duration.ofSeconds(60)).build(),
+            sqsServiceClient(queueName),
+            null,
+            0) {
+          @Override
+          public void process(String message) {}
+        };
+    listeners.add(listener);
+
+    assertDoesNotThrow(
+        () ->
+            listener.reconfigure(
+                SqsListenerConfig.builder().visibilityTimeout(Duration.ofSeconds(5)).build()));
+  }
+
+  private static String queueName() {
+    return "reconfigure-queue-" + QUEUE_COUNT.incrementAndGet();
+  }
+
+  private SqsServiceClient sqsServiceClient(String queueName) {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    when(sqsServiceClient.getQueueBacklog(queueName))
+        .thenReturn(new QueueBacklog(1000, 0, 0, System.currentTimeMillis()));
+    when(sqsServiceClient.receiveMessage(eq(queueName), any(), anyInt(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              if (stopped.get()) {
+                return Collections.emptyList();
+              }
+              int count = invocation.getArgument(2);
+              List<SqsMessage> messages = new ArrayList<>(count);
+              for (int i = 0; i < count; i++) {
+                messages.add(
+                    new SqsMessage(
+                        queueName,
+                        "msg" + i,
+                        "handle" + i,
+                        "body",
+                        0L,
+                        1,
+                        Collections.emptyMap(),
+                        0L,
+                        System.currentTimeMillis()));
+              }
+              return messages;
+            });
+    return sqsServiceClient;
+  }
+}
@@ -6,8 +6,14 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.sql.*;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -20,6 +26,7 @@ import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.CreateQueueResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 
 class SqsListenerTest {
   static final DockerImageName LOCALSTACK_IMAGE =
@@ -155,6 +162,85 @@ class SqsListenerTest {
                     && getTotalCount() == messageSize);
   }
 
+  @Test
+  void shouldNotLetSlowOrFailingMessageHoldUpTheOthers() {
+    final String slowQueueName = "test-slow-queue";
+    final String slowQueueUrl =
+        sqsClient.createQueue(builder -> builder.queueName(slowQueueName)).join().queueUrl();
+    sqsClient.sendMessage(builder -> builder.queueUrl(slowQueueUrl).messageBody("slow").build());
+    sqsClient.sendMessage(builder -> builder.queueUrl(slowQueueUrl).messageBody("fail").build());
+    for (int i = 1; i <= 4; i++) {
+      final String body = "fast-" + i;
+      sqsClient.sendMessage(builder -> builder.queueUrl(slowQueueUrl).messageBody(body).build());
+    }
+
+    final CountDownLatch slowReleased = new CountDownLatch(1);
+    final AtomicBoolean failing = new AtomicBoolean(true);
+    final Set<String> processed = ConcurrentHashMap.newKeySet();
+    new SqsListener(
+        slowQueueName,
+        SqsListenerConfig.builder()
+            .parallelism(5)
+            .pollingFrequency(Duration.ofSeconds(1))
+            .visibilityTimeout(Duration.ofSeconds(5))
+            .sqsClient(sqsClient)
+            .build()) {
+      @Override
+      public void process(String message) throws InterruptedException {
+        if (message.equals("slow")) {
+          slowReleased.await();
+        } else if (message.equals("fail") && failing.getAndSet(false)) {
+          throw new IllegalStateException("Error in client processing");
+        }
+        processed.add(message);
+      }
+    };
+
+    // the fast messages are deleted while the slow one is still being processed, and the failed
+    // one waits for its extended visibility timeout
+    await()
+        .atMost(1, TimeUnit.MINUTES)
+        .until(
+            () -> {
+              final Map<QueueAttributeName, String> attributes =
+                  sqsClient
+                      .getQueueAttributes(
+                          builder ->
+                              builder
+                                  .queueUrl(slowQueueUrl)
+                                  .attributeNames(
+                                      QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                                      QueueAttributeName
+                                          .APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE))
+                      .join()
+                      .attributes();
+              return processed.containsAll(Arrays.asList("fast-1", "fast-2", "fast-3", "fast-4"))
+                  && !failing.get()
+                  && "0".equals(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES))
+                  && "2"
+                      .equals(
+                          attributes.get(
+                              QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE));
+            });
+    Assertions.assertFalse(processed.contains("slow"));
+
+    slowReleased.countDown();
+    await()
+        .atMost(1, TimeUnit.MINUTES)
+        .until(
+            () ->
+                processed.containsAll(Arrays.asList("slow", "fail"))
+                    && !sqsClient
+                        .receiveMessage(
+                            builder ->
+                                builder
+                                    .queueUrl(slowQueueUrl)
+                                    .waitTimeSeconds(1)
+                                    .visibilityTimeout(0))
+                        .join()
+                        .hasMessages());
+  }
+
   static void initMockDatabase() {
     try (Connection conn =
             DriverManager.getConnection(
@@ -0,0 +1,144 @@
+package com.codebodhi.sqslistener;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SqsPublisherTest {
+  static final String queueName = "test-queue";
+
+  @Test
+  void shouldBatchUpToTenMessages() throws Exception {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    doAnswer(
+            invocation -> {
+              List<SqsOutboundMessage> batch = invocation.getArgument(1);
+              batchSizes.add(batch.size());
+              batch.forEach(message -> message.messageId = "id-" + message.body);
+              return null;
+            })
+        .when(sqsServiceClient)
+        .sendMessages(eq(queueName), anyList());
+
+    List<CompletableFuture<String>> futures = new ArrayList<>();
+    try (SqsPublisher publisher =
+        new SqsPublisher(
+            queueName,
+            SqsPublisherConfig.builder().linger(Duration.ofMinutes(1)).build(),
+            sqsServiceClient)) {
+      for (int i = 0; i < 25; i++) {
+        futures.add(publisher.publish("msg" + i));
+      }
+    }
+
+    assertEquals(Arrays.asList(10, 10, 5), sortedDescending(batchSizes));
+    assertEquals("id-msg24", futures.get(24).get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldSendPartialBatchAfterLinger() throws Exception {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    doAnswer(
+            invocation -> {
+              List<SqsOutboundMessage> batch = invocation.getArgument(1);
+              batch.forEach(message -> message.messageId = "id-" + message.body);
+              return null;
+            })
+        .when(sqsServiceClient)
+        .sendMessages(eq(queueName), anyList());
+
+    try (SqsPublisher publisher =
+        new SqsPublisher(
+            queueName,
+            SqsPublisherConfig.builder().linger(Duration.ofMillis(10)).build(),
+            sqsServiceClient)) {
+      assertEquals("id-msg1", publisher.publish("msg1").get(5, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void shouldRetryOnlyFailedEntries() throws Exception {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    AtomicInteger attempts = new AtomicInteger();
+    doAnswer(
+            invocation -> {
+              List<SqsOutboundMessage> batch = invocation.getArgument(1);
+              batchSizes.add(batch.size());
+              boolean firstAttempt = attempts.getAndIncrement() == 0;
+              for (SqsOutboundMessage message : batch) {
+                if (firstAttempt && message.body.equals("msg2")) {
+                  message.errorCode = "InternalError";
+                } else if (message.body.equals("msg3")) {
+                  message.errorCode = "InvalidMessageContents";
+                  message.senderFault = true;
+                } else {
+                  message.messageId = "id-" + message.body;
+                }
+              }
+              return null;
+            })
+        .when(sqsServiceClient)
+        .sendMessages(eq(queueName), anyList());
+
+    CompletableFuture<String> msg2;
+    CompletableFuture<String> msg3;
+    try (SqsPublisher publisher =
+        new SqsPublisher(queueName, SqsPublisherConfig.builder().build(), sqsServiceClient)) {
+      publisher.publish("msg1");
+      msg2 = publisher.publish("msg2");
+      msg3 = publisher.publish("msg3");
+    }
+
+    assertEquals(Arrays.asList(3, 1), batchSizes);
+    assertEquals("id-msg2", msg2.get(1, TimeUnit.SECONDS));
+    ExecutionException e = assertThrows(ExecutionException.class, msg3::get);
+    assertInstanceOf(SqsListenerException.class, e.getCause());
+  }
+
+  @Test
+  void shouldFailAfterMaxRetries() {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    doThrow(new SqsListenerException("Async operation failed"))
+        .when(sqsServiceClient)
+        .sendMessages(eq(queueName), anyList());
+
+    CompletableFuture<String> future;
+    try (SqsPublisher publisher =
+        new SqsPublisher(
+            queueName, SqsPublisherConfig.builder().maxRetries(1).build(), sqsServiceClient)) {
+      future = publisher.publish("msg1");
+    }
+
+    assertTrue(future.isCompletedExceptionally());
+    verify(sqsServiceClient, times(2)).sendMessages(eq(queueName), anyList());
+  }
+
+  @Test
+  void shouldRejectOversizedMessage() {
+    SqsServiceClient sqsServiceClient = mock(SqsServiceClient.class);
+    char[] body = new char[SqsOutboundMessage.MAX_BATCH_BYTES + 1];
+    Arrays.fill(body, 'a');
+    try (SqsPublisher publisher =
+        new SqsPublisher(queueName, SqsPublisherConfig.builder().build(), sqsServiceClient)) {
+      assertTrue(publisher.publish(new String(body)).isCompletedExceptionally());
+    }
+    verifyNoInteractions(sqsServiceClient);
+  }
+
+  private static List<Integer> sortedDescending(List<Integer> values) {
+    List<Integer> sorted = new ArrayList<>(values);
+    sorted.sort(Comparator.reverseOrder());
+    return sorted;
+  }
+}
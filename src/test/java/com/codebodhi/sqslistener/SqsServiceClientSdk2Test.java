@@ -1,6 +1,7 @@
 package com.codebodhi.sqslistener;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import java.time.Duration;
@@ -8,11 +9,14 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
@@ -38,7 +42,7 @@ class SqsServiceClientSdk2Test {
   }
 
   @Test
-  void shouldGetTotalNoOfMessages() {
+  void shouldGetQueueBacklog() {
     String queueName = "test-queue";
     String queueUrl = "dummy://mock-queue";
     when(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build()))
@@ -48,16 +52,25 @@ class SqsServiceClientSdk2Test {
 
     Map<QueueAttributeName, String> attributeMap = new HashMap<>();
     attributeMap.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "10");
+    attributeMap.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, "5");
+    attributeMap.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_DELAYED, "2");
 
     when(sqsClient.getQueueAttributes(
             GetQueueAttributesRequest.builder()
                 .queueUrl(queueUrl)
-                .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES)
+                .attributeNames(
+                    QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                    QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE,
+                    QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_DELAYED)
                 .build()))
         .thenReturn(
             CompletableFuture.completedFuture(
                 GetQueueAttributesResponse.builder().attributes(attributeMap).build()));
-    assertEquals(10, sqsApiSdk2.getTotalNumberOfMessages(queueName));
+
+    QueueBacklog backlog = sqsApiSdk2.getQueueBacklog(queueName);
+    assertEquals(10, backlog.getVisible());
+    assertEquals(5, backlog.getNotVisible());
+    assertEquals(2, backlog.getDelayed());
   }
 
   @Test
@@ -82,7 +95,8 @@ class SqsServiceClientSdk2Test {
                 .maxNumberOfMessages(parallelization)
                 .messageSystemAttributeNames(
                     MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP,
-                    MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT)
+                    MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT,
+                    MessageSystemAttributeName.SENT_TIMESTAMP)
                 .build()))
         .thenReturn(
             CompletableFuture.completedFuture(
@@ -105,12 +119,13 @@ class SqsServiceClientSdk2Test {
                             .build())
                     .build()));
 
-    Set<SqsMessage> receivedMessages =
+    List<SqsMessage> receivedMessages =
         sqsApiSdk2.receiveMessage(
             queueName,
             Duration.ofSeconds(pollingFrequencyInSecs),
             parallelization,
-            Duration.ofSeconds(visibilityTimeoutInSecs));
+            Duration.ofSeconds(visibilityTimeoutInSecs),
+            Collections.emptySet());
 
     assertEquals(3, receivedMessages.size());
 
@@ -122,6 +137,202 @@ class SqsServiceClientSdk2Test {
     assertEquals("msg1-body", sortedMessages.get(0).body);
     assertEquals("msg2-body", sortedMessages.get(1).body);
     assertEquals("msg3-body", sortedMessages.get(2).body);
+    assertEquals(3, sortedMessages.get(2).receivedCount);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldKeepMessageAttributeDataTypes() {
+    String queueName = "test-queue";
+    String queueUrl = "dummy://mock-queue";
+    when(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build()))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                GetQueueUrlResponse.builder().queueUrl(queueUrl).build()));
+    Map<String, MessageAttributeValue> attributes = new HashMap<>();
+    attributes.put(
+        "count", MessageAttributeValue.builder().dataType("Number").stringValue("42").build());
+    attributes.put(
+        "thumbnail",
+        MessageAttributeValue.builder()
+            .dataType("Binary.png")
+            .binaryValue(SdkBytes.fromByteArray(new byte[] {1, 2, 3}))
+            .build());
+    when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                ReceiveMessageResponse.builder()
+                    .messages(
+                        Message.builder()
+                            .messageId("msg1")
+                            .body("msg1-body")
+                            .attributes(messagAttributeMap(1))
+                            .messageAttributes(attributes)
+                            .build())
+                    .build()));
+    when(sqsClient.sendMessageBatch(any(Consumer.class)))
+        .thenReturn(CompletableFuture.completedFuture(SendMessageBatchResponse.builder().build()));
+
+    SqsMessage message =
+        sqsApiSdk2
+            .receiveMessage(
+                queueName,
+                Duration.ofSeconds(1),
+                1,
+                Duration.ofSeconds(30),
+                Collections.singleton("All"))
+            .get(0);
+    assertEquals(Collections.singletonMap("count", "42"), message.getMessageAttributes());
+
+    sqsApiSdk2.sendMessages(
+        queueName,
+        Collections.singletonList(new SqsOutboundMessage(message.body, message.messageAttributes)));
+
+    ArgumentCaptor<ReceiveMessageRequest> received =
+        ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+    verify(sqsClient).receiveMessage(received.capture());
+    assertEquals(Collections.singletonList("All"), received.getValue().messageAttributeNames());
+    ArgumentCaptor<Consumer<SendMessageBatchRequest.Builder>> captor =
+        ArgumentCaptor.forClass(Consumer.class);
+    verify(sqsClient).sendMessageBatch(captor.capture());
+    SendMessageBatchRequest.Builder builder = SendMessageBatchRequest.builder();
+    captor.getValue().accept(builder);
+    assertEquals(attributes, builder.build().entries().get(0).messageAttributes());
+  }
+
+  @Test
+  void shouldResolveQueueUrlOnce() {
+    String queueName = "test-queue";
+    String queueUrl = "dummy://mock-queue";
+    when(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build()))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                GetQueueUrlResponse.builder().queueUrl(queueUrl).build()));
+
+    assertEquals(queueUrl, sqsApiSdk2.getQueueUrl(queueName));
+    assertEquals(queueUrl, sqsApiSdk2.getQueueUrl(queueName));
+    verify(sqsClient, times(1)).getQueueUrl(any(GetQueueUrlRequest.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldDeleteMessagesWithUniqueBatchEntryIds() {
+    String queueName = "test-queue";
+    String queueUrl = "dummy://mock-queue";
+    when(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build()))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                GetQueueUrlResponse.builder().queueUrl(queueUrl).build()));
+
+    when(sqsClient.deleteMessageBatch(any(Consumer.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                DeleteMessageBatchResponse.builder()
+                    .successful(
+                        DeleteMessageBatchResultEntry.builder().id("0").build(),
+                        DeleteMessageBatchResultEntry.builder().id("2").build())
+                    .failed(
+                        BatchResultErrorEntry.builder()
+                            .id("1")
+                            .code("ReceiptHandleIsInvalid")
+                            .senderFault(true)
+                            .build())
+                    .build()));
+
+    BitSet deleted =
+        sqsApiSdk2.deleteMessages(queueName, Arrays.asList("handle1", "handle2", "handle3")).join();
+    assertEquals(Arrays.asList(0, 2), deleted.stream().boxed().collect(Collectors.toList()));
+
+    ArgumentCaptor<Consumer<DeleteMessageBatchRequest.Builder>> captor =
+        ArgumentCaptor.forClass(Consumer.class);
+    verify(sqsClient).deleteMessageBatch(captor.capture());
+    DeleteMessageBatchRequest.Builder builder = DeleteMessageBatchRequest.builder();
+    captor.getValue().accept(builder);
+    DeleteMessageBatchRequest request = builder.build();
+
+    assertEquals(queueUrl, request.queueUrl());
+    assertEquals(
+        Arrays.asList("handle1", "handle2", "handle3"),
+        request.entries().stream()
+            .map(DeleteMessageBatchRequestEntry::receiptHandle)
+            .collect(Collectors.toList()));
+    assertEquals(
+        3, request.entries().stream().map(DeleteMessageBatchRequestEntry::id).distinct().count());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldSendMessagesInBatchAndRecordResults() {
+    String queueName = "test-queue";
+    String queueUrl = "dummy://mock-queue";
+    when(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build()))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                GetQueueUrlResponse.builder().queueUrl(queueUrl).build()));
+    when(sqsClient.sendMessageBatch(any(Consumer.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                SendMessageBatchResponse.builder()
+                    .successful(
+                        SendMessageBatchResultEntry.builder().id("0").messageId("msg1").build())
+                    .failed(
+                        BatchResultErrorEntry.builder()
+                            .id("1")
+                            .code("InternalError")
+                            .senderFault(false)
+                            .build())
+                    .build()));
+
+    List<SqsOutboundMessage> messages =
+        Arrays.asList(
+            new SqsOutboundMessage(
+                "msg1-body",
+                Collections.singletonMap("key", SqsMessageAttribute.ofString("value"))),
+            new SqsOutboundMessage("msg2-body"));
+    sqsApiSdk2.sendMessages(queueName, messages);
+
+    assertEquals("msg1", messages.get(0).messageId);
+    assertEquals("InternalError", messages.get(1).errorCode);
+
+    ArgumentCaptor<Consumer<SendMessageBatchRequest.Builder>> captor =
+        ArgumentCaptor.forClass(Consumer.class);
+    verify(sqsClient).sendMessageBatch(captor.capture());
+    SendMessageBatchRequest.Builder builder = SendMessageBatchRequest.builder();
+    captor.getValue().accept(builder);
+    SendMessageBatchRequest request = builder.build();
+    assertEquals(queueUrl, request.queueUrl());
+    assertEquals("msg1-body", request.entries().get(0).messageBody());
+    assertEquals("value", request.entries().get(0).messageAttributes().get("key").stringValue());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldChangeVisibilityTimeoutsInBatch() {
+    String queueName = "test-queue";
+    String queueUrl = "dummy://mock-queue";
+    when(sqsClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queueName).build()))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                GetQueueUrlResponse.builder().queueUrl(queueUrl).build()));
+
+    sqsApiSdk2.changeVisibilityTimeouts(
+        queueName, Arrays.asList("handle1", "handle2"), Duration.ZERO);
+
+    ArgumentCaptor<Consumer<ChangeMessageVisibilityBatchRequest.Builder>> captor =
+        ArgumentCaptor.forClass(Consumer.class);
+    verify(sqsClient).changeMessageVisibilityBatch(captor.capture());
+    ChangeMessageVisibilityBatchRequest.Builder builder =
+        ChangeMessageVisibilityBatchRequest.builder();
+    captor.getValue().accept(builder);
+    ChangeMessageVisibilityBatchRequest request = builder.build();
+
+    assertEquals(queueUrl, request.queueUrl());
+    assertEquals(
+        new HashSet<>(Arrays.asList("handle1", "handle2")),
+        request.entries().stream()
+            .map(ChangeMessageVisibilityBatchRequestEntry::receiptHandle)
+            .collect(Collectors.toSet()));
+    request.entries().forEach(entry -> assertEquals(0, entry.visibilityTimeout()));
   }
 
   static Map<MessageSystemAttributeName, String> messagAttributeMap(int msgReceiveCount) {
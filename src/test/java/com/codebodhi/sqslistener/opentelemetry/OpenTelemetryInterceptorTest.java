@@ -0,0 +1,129 @@
+package com.codebodhi.sqslistener.opentelemetry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.codebodhi.sqslistener.SqsMessageContext;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpenTelemetryInterceptorTest {
+  private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+  private static final String PARENT_SPAN_ID = "b7ad6b7169203331";
+
+  InMemorySpanExporter exporter;
+  OpenTelemetryInterceptor interceptor;
+
+  @BeforeEach
+  void before() {
+    exporter = InMemorySpanExporter.create();
+    interceptor =
+        new OpenTelemetryInterceptor(
+            OpenTelemetrySdk.builder()
+                .setTracerProvider(
+                    SdkTracerProvider.builder()
+                        .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                        .build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build());
+  }
+
+  @Test
+  void shouldContinueProducerTraceFromTraceparentAttribute() {
+    assertTrue(interceptor.messageAttributeNames().contains("traceparent"));
+    SqsMessageContext message =
+        message(
+            Collections.singletonMap(
+                "traceparent", "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01"));
+
+    interceptor.beforeProcess(message);
+    assertEquals(TRACE_ID, Span.current().getSpanContext().getTraceId());
+    interceptor.afterProcess(message);
+
+    assertFalse(Span.current().getSpanContext().isValid());
+    SpanData span = exporter.getFinishedSpanItems().get(0);
+    assertEquals(TRACE_ID, span.getTraceId());
+    assertEquals(PARENT_SPAN_ID, span.getParentSpanId());
+    assertEquals(SpanKind.CONSUMER, span.getKind());
+    assertEquals("test-queue process", span.getName());
+  }
+
+  @Test
+  void shouldStartNewTraceAndRecordFailure() {
+    SqsMessageContext message = message(Collections.emptyMap());
+
+    interceptor.beforeProcess(message);
+    interceptor.onError(message, new IllegalStateException("Error in client processing"));
+
+    SpanData span = exporter.getFinishedSpanItems().get(0);
+    assertFalse(span.getParentSpanContext().isValid());
+    assertEquals(StatusCode.ERROR, span.getStatus().getStatusCode());
+    assertEquals(1, span.getEvents().size());
+    assertFalse(Span.current().getSpanContext().isValid());
+  }
+
+  private static SqsMessageContext message(Map<String, String> attributes) {
+    return new SqsMessageContext() {
+      @Override
+      public String getQueueName() {
+        return "test-queue";
+      }
+
+      @Override
+      public String getMessageId() {
+        return "msg1";
+      }
+
+      @Override
+      public String getBody() {
+        return "lorem ipsum";
+      }
+
+      @Override
+      public int getReceivedCount() {
+        return 1;
+      }
+
+      @Override
+      public Map<String, String> getMessageAttributes() {
+        return attributes;
+      }
+
+      @Override
+      public long getSentTimestamp() {
+        return 1000L;
+      }
+
+      @Override
+      public long getReceivedTimestamp() {
+        return 2000L;
+      }
+
+      @Override
+      public long getDispatchedTimestamp() {
+        return 3000L;
+      }
+
+      @Override
+      public long getProcessedTimestamp() {
+        return 4000L;
+      }
+
+      @Override
+      public long getDeletedTimestamp() {
+        return 0L;
+      }
+    };
+  }
+}